@@ -0,0 +1,62 @@
+package com.carsharing.benchmark;
+
+import com.carsharing.backend.dto.BookingDTO;
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.service.BookingService;
+import com.carsharing.backend.service.RideService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO conversion in the services, with repositories stubbed in memory (Fixtures), so only the
+ * service code is measured.
+ *
+ * convertToDtoList/convertToDto are private; they are reached through the thinnest public callers:
+ * BookingService.findBookingsByPassengerEmail (one user lookup + the batched list conversion) and
+ * RideService.getRideDetailsById (one findById + convertToDto).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoConversionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int bookings;
+
+    private BookingService bookingService;
+    private RideService rideService;
+    private String rideId;
+
+    @Setup
+    public void setUp() {
+        Fixtures fixtures = new Fixtures(bookings);
+        bookingService = fixtures.bookingService();
+        rideService = fixtures.rideService();
+        rideId = fixtures.anyRide().getId();
+    }
+
+    @Benchmark
+    public List<BookingDTO> bookingConvertToDtoList() {
+        return bookingService.findBookingsByPassengerEmail(Fixtures.PASSENGER_EMAIL);
+    }
+
+    @Benchmark
+    public RideDTO rideConvertToDto() {
+        return rideService.getRideDetailsById(rideId);
+    }
+}
@@ -0,0 +1,190 @@
+package com.carsharing.benchmark;
+
+import com.carsharing.backend.model.Booking;
+import com.carsharing.backend.model.BookingStatus;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.RideStatus;
+import com.carsharing.backend.model.User;
+import com.carsharing.backend.repository.BookingRepository;
+import com.carsharing.backend.repository.RideRepository;
+import com.carsharing.backend.repository.RideRepositoryCustom;
+import com.carsharing.backend.repository.UserRepository;
+import com.carsharing.backend.service.BookingService;
+import com.carsharing.backend.service.RideService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Synthetic data and services wired to in-memory stub repositories, shared by the benchmarks.
+ *
+ * Data is generated from a fixed seed, so every run (and every fork) sees the same rides, users and bookings.
+ * Repositories are JDK proxies answering only the finder methods the benchmarked code calls, from maps;
+ * anything else throws, so a benchmark can't silently start depending on a query it doesn't stub.
+ */
+final class Fixtures {
+
+    static final String PASSENGER_EMAIL = "passenger@example.com";
+
+    private static final String[][] CITIES = {
+            {"Berlin", "BE"}, {"Hamburg", "HH"}, {"Munich", "BY"}, {"Cologne", "NW"}, {"Frankfurt", "HE"},
+            {"Stuttgart", "BW"}, {"Leipzig", "SN"}, {"Dresden", "SN"}, {"Hanover", "NI"}, {"Nuremberg", "BY"}};
+
+    final Map<String, Ride> rides = new LinkedHashMap<>();
+    final Map<String, User> users = new LinkedHashMap<>();
+    final Map<String, User> usersByEmail = new LinkedHashMap<>();
+    final List<Booking> passengerBookings = new ArrayList<>();
+    final User passenger;
+
+    /**
+     * @param bookingCount number of bookings held by the benchmark passenger, each on its own ride with its own driver.
+     */
+    Fixtures(int bookingCount) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2024, 6, 1, 8, 0);
+        passenger = user("passenger", PASSENGER_EMAIL, "Pat Passenger", List.of("ROLE_PASSENGER"));
+        for (int i = 0; i < bookingCount; i++) {
+            User driver = user("driver-" + i, "driver" + i + "@example.com", "Driver " + i, List.of("ROLE_PASSENGER", "ROLE_DRIVER"));
+            Ride ride = ride("ride-" + i, driver.getId(), random, now.plusHours(i));
+            rides.put(ride.getId(), ride);
+
+            Booking booking = new Booking();
+            booking.setId("booking-" + i);
+            booking.setRideId(ride.getId());
+            booking.setPassengerId(passenger.getId());
+            booking.setDriverId(driver.getId());
+            booking.setRequestedSeats(1 + random.nextInt(2));
+            booking.setStatus(i % 3 == 0 ? BookingStatus.REQUESTED : BookingStatus.CONFIRMED);
+            booking.setCreatedAt(now.minusDays(1).plusMinutes(i));
+            booking.setUpdatedAt(booking.getCreatedAt());
+            booking.setConfirmationTime(booking.getStatus() == BookingStatus.CONFIRMED ? booking.getCreatedAt().plusMinutes(5) : null);
+            passengerBookings.add(booking);
+        }
+    }
+
+    Ride anyRide() {
+        return rides.values().iterator().next();
+    }
+
+    // --- Services over stub repositories ---
+
+    BookingService bookingService() {
+        return new BookingService(bookingRepository(), rideRepository(), userRepository(), null, null, null);
+    }
+
+    RideService rideService() {
+        return new RideService(rideRepository(), userRepository(), null, null, null, null, null, null);
+    }
+
+    RideRepository rideRepository() {
+        return stub(RideRepository.class, Map.of(
+                "findById", args -> Optional.ofNullable(rides.get((String) args[0])),
+                "findAllById", args -> lookup(rides, args[0])));
+    }
+
+    // Only countRidesByLocation, for seeding LocationAutocomplete
+    static RideRepository locationCountRepository(List<RideRepositoryCustom.LocationCount> counts) {
+        return stub(RideRepository.class, Map.of("countRidesByLocation", args -> counts));
+    }
+
+    UserRepository userRepository() {
+        return stub(UserRepository.class, Map.of(
+                "findById", args -> Optional.ofNullable(users.get((String) args[0])),
+                "findAllById", args -> lookup(users, args[0]),
+                "findByEmail", args -> Optional.ofNullable(usersByEmail.get((String) args[0]))));
+    }
+
+    BookingRepository bookingRepository() {
+        return stub(BookingRepository.class, Map.of(
+                "findByPassengerId", args -> passenger.getId().equals(args[0]) ? passengerBookings : List.of()));
+    }
+
+    // Same Jackson setup as the application's (Spring Boot's defaults: ISO dates, java.time support)
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    // --- Generation helpers ---
+
+    private User user(String id, String email, String name, List<String> roles) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(name);
+        user.setRoles(roles);
+        users.put(id, user);
+        usersByEmail.put(email, user);
+        return user;
+    }
+
+    private static Ride ride(String id, String driverId, Random random, LocalDateTime departure) {
+        String[] from = CITIES[random.nextInt(CITIES.length)];
+        String[] to = CITIES[random.nextInt(CITIES.length)];
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setDriverId(driverId);
+        ride.setDepartureCity(from[0]);
+        ride.setDepartureState(from[1]);
+        ride.setDestinationCity(to[0]);
+        ride.setDestinationState(to[1]);
+        ride.setDepartureAddress(random.nextInt(200) + " Main Street");
+        ride.setDestinationAddress(random.nextInt(200) + " Station Road");
+        ride.setOriginLocation(new GeoJsonPoint(6 + random.nextDouble() * 8, 47 + random.nextDouble() * 7));
+        ride.setDestinationLocation(new GeoJsonPoint(6 + random.nextDouble() * 8, 47 + random.nextDouble() * 7));
+        ride.setDepartureTime(departure);
+        ride.setEstimatedArrivalTime(departure.plusMinutes(90 + random.nextInt(240)));
+        ride.setTotalSeats(4);
+        ride.setAvailableSeats(1 + random.nextInt(4));
+        ride.setFarePerSeat(10 + random.nextInt(40));
+        ride.setIntermediateStops(List.of(CITIES[random.nextInt(CITIES.length)][0]));
+        ride.setLuggagePreference("MEDIUM");
+        ride.setRideNotes("No detours, one short break.");
+        ride.setStatus(RideStatus.SCHEDULED);
+        ride.setCreatedAt(departure.minusDays(3));
+        ride.setUpdatedAt(departure.minusDays(2));
+        return ride;
+    }
+
+    private static <T> List<T> lookup(Map<String, T> byId, Object ids) {
+        List<T> found = new ArrayList<>();
+        for (Object id : (Iterable<?>) ids) {
+            T value = byId.get((String) id);
+            if (value != null) {
+                found.add(value);
+            }
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> repositoryType, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[] {repositoryType},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> repositoryType.getSimpleName() + " stub";
+                        };
+                    }
+                    throw new UnsupportedOperationException(repositoryType.getSimpleName() + "." + method.getName() + " is not stubbed");
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package com.carsharing.benchmark;
+
+import com.carsharing.backend.dto.BookingDTO;
+import com.carsharing.backend.dto.RideDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the DTO lists returned by the search and booking endpoints, with the
+ * application's ObjectMapper configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<RideDTO> rides;
+    private List<BookingDTO> bookings;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Fixtures.objectMapper();
+        writer = objectMapper.writer();
+        Fixtures fixtures = new Fixtures(size);
+        var rideService = fixtures.rideService();
+        rides = fixtures.rides.keySet().stream().map(rideService::getRideDetailsById).toList();
+        bookings = fixtures.bookingService().findBookingsByPassengerEmail(Fixtures.PASSENGER_EMAIL);
+    }
+
+    @Benchmark
+    public byte[] rideDtoList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(rides);
+    }
+
+    @Benchmark
+    public byte[] bookingDtoList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bookings);
+    }
+}
@@ -0,0 +1,112 @@
+package com.carsharing.benchmark;
+
+import com.carsharing.backend.dto.LocationSuggestionDTO;
+import com.carsharing.backend.repository.RideRepositoryCustom.LocationCount;
+import com.carsharing.backend.service.LocationAutocomplete;
+import com.carsharing.backend.service.LocationNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/rides/locations/suggest: LocationAutocomplete lookups over {@code cities} synthetic city names
+ * (50 states, skewed ride counts), for 1-, 3- and 6-character prefixes and for a prefix nothing starts with.
+ * Prefixes rotate over names that exist, so the walk doesn't always hit the same trie nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationAutocompleteBenchmark {
+
+    private static final String[] SYLLABLES = {"ber", "lin", "ham", "burg", "mun", "ich", "stutt", "gart", "dres", "den",
+            "leip", "zig", "bre", "men", "han", "no", "ver", "frei", "kas", "sel", "wei", "mar", "ros", "tock", "au"};
+    private static final int PREFIXES = 1024;
+
+    @Param({"2000", "20000"})
+    public int cities;
+
+    private LocationAutocomplete autocomplete;
+    private String[] short1;
+    private String[] short3;
+    private String[] long6;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        List<LocationCount> counts = new ArrayList<>(cities);
+        List<String> names = new ArrayList<>(cities);
+        for (int i = 0; i < cities; i++) {
+            String name = cityName(random) + " " + i; // Suffix keeps names unique at any size
+            names.add(name);
+            // Skewed like real demand: a few hubs with thousands of rides, a long tail with a handful
+            counts.add(new LocationCount(name, "S" + (i % 50), 1 + (long) (10_000 / Math.pow(1 + i, 0.8))));
+        }
+        LocationNormalizer normalizer = new LocationNormalizer(new ClassPathResource("location-aliases.csv"));
+        normalizer.loadAliases();
+        autocomplete = new LocationAutocomplete(Fixtures.locationCountRepository(counts), normalizer);
+        autocomplete.warmUp();
+
+        short1 = new String[PREFIXES];
+        short3 = new String[PREFIXES];
+        long6 = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String name = names.get(random.nextInt(names.size()));
+            short1[i] = name.substring(0, 1);
+            short3[i] = name.substring(0, Math.min(3, name.length()));
+            long6[i] = name.substring(0, Math.min(6, name.length()));
+        }
+    }
+
+    @Benchmark
+    public List<LocationSuggestionDTO> suggestOneChar() {
+        return autocomplete.suggestCities(short1[next()], LocationAutocomplete.MAX_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<LocationSuggestionDTO> suggestThreeChars() {
+        return autocomplete.suggestCities(short3[next()], LocationAutocomplete.MAX_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<LocationSuggestionDTO> suggestSixChars() {
+        return autocomplete.suggestCities(long6[next()], LocationAutocomplete.MAX_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<LocationSuggestionDTO> suggestNoMatch() {
+        return autocomplete.suggestCities("qxz", LocationAutocomplete.MAX_SUGGESTIONS);
+    }
+
+    private int next() {
+        next = (next + 1) & (PREFIXES - 1);
+        return next;
+    }
+
+    private static String cityName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int parts = 2 + random.nextInt(2);
+        for (int i = 0; i < parts; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+}
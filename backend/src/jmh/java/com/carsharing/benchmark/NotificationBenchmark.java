@@ -0,0 +1,71 @@
+package com.carsharing.benchmark;
+
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.model.BookingStatus;
+import com.carsharing.backend.service.NotificationService;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationService sends: payload building plus the template's conversion of the payload into a message
+ * (JSON serialization and headers), into a channel that hands each message to a Blackhole instead of a broker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationBenchmark {
+
+    private NotificationService notificationService;
+    private RideDTO rideDto;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        MessageChannel brokerChannel = (message, timeout) -> {
+            blackhole.consume(message);
+            return true;
+        };
+        SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(Fixtures.objectMapper()); // As configured by Spring Boot for STOMP
+        template.setMessageConverter(converter);
+        notificationService = new NotificationService(template, ObservationRegistry.NOOP);
+
+        Fixtures fixtures = new Fixtures(1);
+        rideDto = fixtures.rideService().getRideDetailsById(fixtures.anyRide().getId());
+    }
+
+    @Benchmark
+    public void rideStatusUpdate() {
+        notificationService.notifyRideStatusUpdate(rideDto);
+    }
+
+    @Benchmark
+    public void bookingUpdate() {
+        notificationService.sendBookingUpdateNotification("passenger@example.com", "booking-1",
+                BookingStatus.CONFIRMED, "Your booking has been confirmed by the driver.");
+    }
+
+    @Benchmark
+    public void bookingRequest() {
+        notificationService.sendBookingRequestNotification("driver@example.com", "booking-1", "Pat Passenger",
+                "Berlin", "Hamburg");
+    }
+}
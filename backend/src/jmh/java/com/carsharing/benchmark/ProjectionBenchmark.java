@@ -0,0 +1,200 @@
+package com.carsharing.benchmark;
+
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.dto.RideSummaryDTO;
+import com.carsharing.backend.model.DocumentInfo;
+import com.carsharing.backend.model.DocumentStatus;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.User;
+import com.carsharing.backend.service.LocationNormalizer;
+import com.carsharing.backend.service.RideService;
+import com.carsharing.backend.util.RouteKeys;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full documents vs the projections behind the list endpoints (RideRepository.RideSummaryView for
+ * GET /api/driver/my-rides, UserRepository.UserProfileView for GET /api/admin/drivers/pending).
+ *
+ * Measures the client side of a list read: decoding the BSON reply and mapping it (MappingMongoConverter), for
+ * the full documents and for the projected fields only. Setup prints the payload sizes: BSON per document
+ * (what the server reads out and sends) and the JSON response of the rides endpoint, RideDTO vs RideSummaryDTO.
+ * End-to-end latency of the endpoint itself: EndToEndLoadTest -mix=myrides:1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    // Stored field names of the two projections (the fields Mongo returns for them)
+    private static final Set<String> RIDE_SUMMARY_FIELDS = Set.of("_id", "departure_city", "departure_state", "destination_city",
+            "destination_state", "departure_time", "estimated_arrival_time", "available_seats", "total_seats", "fare_per_seat",
+            "status", "ride_notes", "created_at", "updated_at");
+    private static final Set<String> USER_PROFILE_FIELDS = Set.of("_id", "name", "email", "roles", "driverStatus");
+
+    @Param({"20", "200"})
+    public int rows;
+
+    private final DocumentCodec codec = new DocumentCodec();
+    private MappingMongoConverter converter;
+    private List<byte[]> fullRides;
+    private List<byte[]> projectedRides;
+    private List<byte[]> fullUsers;
+    private List<byte[]> projectedUsers;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Wired as Spring Boot does it: default conversions (java.time, GeoJSON) and their simple types
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        LocationNormalizer normalizer = new LocationNormalizer(new ClassPathResource("location-aliases.csv"));
+        normalizer.loadAliases();
+
+        Fixtures fixtures = new Fixtures(rows);
+        RideService rideService = fixtures.rideService();
+        ObjectMapper objectMapper = Fixtures.objectMapper();
+        fullRides = new ArrayList<>();
+        projectedRides = new ArrayList<>();
+        List<RideDTO> rideDtos = new ArrayList<>();
+        List<RideSummaryDTO> summaryDtos = new ArrayList<>();
+        for (Ride ride : fixtures.rides.values()) {
+            // Multi-stop routes, as offered in practice: 5 points, 10 route segments
+            ride.setIntermediateStops(List.of("Leipzig", "Nuremberg", "Stuttgart"));
+            ride.setRouteSegments(RouteKeys.segmentKeys(ride, normalizer));
+            ride.setRouteKeysVersion(normalizer.getDictionaryVersion());
+            ride.setChatArchivedAt(LocalDateTime.of(2024, 7, 1, 3, 30));
+            Document document = toDocument(ride);
+            fullRides.add(bytes(document));
+            projectedRides.add(bytes(project(document, RIDE_SUMMARY_FIELDS)));
+
+            RideDTO dto = rideService.getRideDetailsById(ride.getId());
+            RideSummaryDTO summary = new RideSummaryDTO();
+            BeanUtils.copyProperties(dto, summary);
+            rideDtos.add(dto);
+            summaryDtos.add(summary);
+        }
+
+        fullUsers = new ArrayList<>();
+        projectedUsers = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            User user = new User("applicant-" + i, "Applicant " + i, "applicant" + i + "@example.com",
+                    "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BJtS6rQOSXw8rL0YVBhZ4Qm1Cj3e", List.of("PASSENGER"));
+            user.setDriverStatus("PENDING_APPROVAL");
+            Document document = toDocument(user);
+            // Embedded document metadata, as stored before UserDocumentsMigration moved it to document_info
+            List<Document> embedded = new ArrayList<>();
+            for (DocumentInfo info : documents(user.getId())) {
+                embedded.add(toDocument(info));
+            }
+            document.put("documents", embedded);
+            fullUsers.add(bytes(document));
+            projectedUsers.add(bytes(project(document, USER_PROFILE_FIELDS)));
+        }
+
+        System.out.printf("%nPayload per document (BSON): ride %d B -> summary %d B, user %d B -> profile %d B%n",
+                fullRides.get(0).length, projectedRides.get(0).length, fullUsers.get(0).length, projectedUsers.get(0).length);
+        System.out.printf("my-rides response for %d rides (JSON): RideDTO %d B -> RideSummaryDTO %d B%n", rows,
+                objectMapper.writeValueAsBytes(rideDtos).length, objectMapper.writeValueAsBytes(summaryDtos).length);
+    }
+
+    @Benchmark
+    public List<Ride> readFullRides() {
+        return read(fullRides, Ride.class);
+    }
+
+    @Benchmark
+    public List<Ride> readRideSummaries() {
+        return read(projectedRides, Ride.class); // Closed projections are read into the domain type, then proxied
+    }
+
+    @Benchmark
+    public List<User> readFullUsers() {
+        return read(fullUsers, User.class);
+    }
+
+    @Benchmark
+    public List<User> readUserProfiles() {
+        return read(projectedUsers, User.class);
+    }
+
+    // --- Helpers ---
+
+    private <T> List<T> read(List<byte[]> documents, Class<T> type) {
+        List<T> result = new ArrayList<>(documents.size());
+        for (byte[] bytes : documents) {
+            Document document = codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+            result.add(converter.read(type, document));
+        }
+        return result;
+    }
+
+    private Document toDocument(Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        return document;
+    }
+
+    private static Document project(Document document, Set<String> fields) {
+        Document projected = new Document();
+        document.forEach((key, value) -> {
+            if (fields.contains(key)) {
+                projected.put(key, value);
+            }
+        });
+        return projected;
+    }
+
+    private byte[] bytes(Document document) {
+        ByteBuffer buffer = new RawBsonDocument(document, codec).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // Licence, registration and insurance of an applicant
+    private static List<DocumentInfo> documents(String userId) {
+        List<DocumentInfo> documents = new ArrayList<>();
+        for (String type : List.of("DRIVING_LICENSE", "VEHICLE_REGISTRATION", "INSURANCE")) {
+            documents.add(new DocumentInfo(userId + "-" + type, userId, type, type.toLowerCase() + ".pdf", "application/pdf",
+                    250_000, userId + "_" + type + "_3f9c2a7e-5b1d-4c8e-9a6f-0d2b7e4c1a93.pdf",
+                    LocalDateTime.of(2024, 5, 20, 9, 15), DocumentStatus.PENDING_APPROVAL));
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,275 @@
+package com.carsharing.loadtest;
+
+import com.carsharing.Application;
+import com.carsharing.backend.config.JwtUtil;
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.model.BookingStatus;
+import com.carsharing.backend.service.NotificationService;
+import com.carsharing.backend.util.StompDestinations;
+import com.carsharing.loadtest.SyntheticDataGenerator.SeedRide;
+import com.carsharing.loadtest.SyntheticDataGenerator.Seeded;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-node check of the STOMP broker relay (websocket.broker.relay.enabled=true): boots two backend nodes in
+ * this JVM, both relaying to one broker and sharing one MongoDB, and verifies that broadcasts and user
+ * destinations reach sessions connected to the other node.
+ *
+ * Checks (each with its own nonce, failing after -timeout-ms):
+ * - chat:   a driver sends on node A (/app/ride/{id}/chat.sendMessage); the same ride's chat topic, subscribed
+ *           on node B, receives it
+ * - status: node A's NotificationService publishes a ride status update; a subscriber on node B receives it
+ * - user:   node A sends to a user destination (/user/queue/bookings) of a user connected only to node B
+ *           (user destination broadcast over the broker)
+ * - direct: a client SEND straight to the chat topic (bypassing /app) is rejected on node A: the sender gets a
+ *           SEND_NOT_ALLOWED error on /user/queue/errors and the subscriber on node B receives nothing
+ *
+ * The broker is an embedded ActiveMQ Artemis with a STOMP acceptor (/topic/ and /queue/ multicast) unless
+ * -broker=host:port points at another one, e.g. RabbitMQ with rabbitmq_stomp on 61613.
+ *
+ * Options (-name=value):
+ *   mongo (embedded | mongodb://... URI; default embedded), mongo-version (V6_0),
+ *   transactions (mongodb.transactions.enabled; default true, and the embedded mongod is then a single-node replica set),
+ *   broker (embedded | host:port; default embedded), broker-login (guest), broker-passcode (guest),
+ *   broker-virtual-host (RabbitMQ vhost, default none), timeout-ms (10000).
+ * Exits with status 1 if any check fails.
+ */
+public class BrokerRelayTwoNodeTest {
+
+    private static final String DATABASE = "carsharing_relaytest";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        long timeoutMs = Long.parseLong(options.getOrDefault("timeout-ms", "10000"));
+
+        // --- MongoDB (shared by both nodes) ---
+        boolean transactions = Boolean.parseBoolean(options.getOrDefault("transactions", "true"));
+        String mongoOption = options.getOrDefault("mongo", "embedded");
+        String mongoVersion = options.getOrDefault("mongo-version", "V6_0");
+        // Transactions need a replica set; a standalone mongod rejects them
+        EmbeddedMongo mongo = transactions ? EmbeddedMongo.startReplicaSet(mongoOption, mongoVersion) : EmbeddedMongo.start(mongoOption, mongoVersion);
+        String mongoUri = mongo.uri(DATABASE);
+        Seeded seeded;
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, DATABASE);
+            mongoTemplate.getDb().drop();
+            seeded = new SyntheticDataGenerator(mongoTemplate, 7).seed(2, 6, 4, 12);
+        }
+        if (seeded.ridesWithPassengers().isEmpty()) {
+            throw new IllegalStateException("Seed produced no ride with confirmed passengers; chat needs one");
+        }
+
+        // --- Broker ---
+        String broker = options.getOrDefault("broker", "embedded");
+        EmbeddedActiveMQ artemis = null;
+        String brokerHost;
+        int brokerPort;
+        if (broker.equals("embedded")) {
+            brokerHost = "127.0.0.1";
+            brokerPort = freePort();
+            artemis = startArtemis(brokerHost, brokerPort);
+            System.out.println("Embedded Artemis STOMP broker on " + brokerHost + ":" + brokerPort);
+        } else {
+            int colon = broker.lastIndexOf(':');
+            brokerHost = broker.substring(0, colon);
+            brokerPort = Integer.parseInt(broker.substring(colon + 1));
+        }
+
+        // --- Two nodes ---
+        List<String> nodeProperties = new ArrayList<>(List.of(
+                "spring.data.mongodb.uri=" + mongoUri,
+                "server.port=0",
+                "mongodb.transactions.enabled=" + transactions,
+                "websocket.broker.relay.enabled=true",
+                "websocket.broker.relay.host=" + brokerHost,
+                "websocket.broker.relay.port=" + brokerPort,
+                "websocket.broker.relay.client-login=" + options.getOrDefault("broker-login", "guest"),
+                "websocket.broker.relay.client-passcode=" + options.getOrDefault("broker-passcode", "guest"),
+                "websocket.broker.relay.system-login=" + options.getOrDefault("broker-login", "guest"),
+                "websocket.broker.relay.system-passcode=" + options.getOrDefault("broker-passcode", "guest"),
+                "websocket.broker.relay.virtual-host=" + options.getOrDefault("broker-virtual-host", "")));
+        ConfigurableApplicationContext nodeA = startNode("relay-node-a", nodeProperties);
+        ConfigurableApplicationContext nodeB = startNode("relay-node-b", nodeProperties);
+        String urlA = "http://localhost:" + nodeA.getEnvironment().getProperty("local.server.port");
+        String urlB = "http://localhost:" + nodeB.getEnvironment().getProperty("local.server.port");
+        System.out.println("Node A at " + urlA + ", node B at " + urlB);
+
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setPoolSize(2);
+        heartbeats.initialize();
+        WebSocketStompClient stompClient = new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setTaskScheduler(heartbeats);
+        JwtUtil jwtUtil = new JwtUtil();
+
+        SeedRide ride = seeded.ridesWithPassengers().get(0);
+        String otherUser = seeded.driverEmails().stream().filter(email -> !email.equals(ride.driverEmail())).findFirst()
+                .orElseThrow(() -> new IllegalStateException("Seed needs a second driver"));
+
+        List<String> failures = new ArrayList<>();
+        StompSession senderOnA = connect(stompClient, urlA, jwtUtil.generateToken(ride.driverEmail(), List.of()));
+        StompSession listenerOnB = connect(stompClient, urlB, jwtUtil.generateToken(ride.driverEmail(), List.of()));
+        StompSession otherUserOnB = connect(stompClient, urlB, jwtUtil.generateToken(otherUser, List.of()));
+
+        // chat: SEND on A -> @MessageMapping on A -> broker -> subscriber on B
+        String chatNonce = "relay-chat-" + UUID.randomUUID();
+        CompletableFuture<Void> chat = expect(listenerOnB, StompDestinations.rideChat(ride.id()), "content", chatNonce);
+        senderOnA.send("/app/ride/" + ride.id() + "/chat.sendMessage", Map.of("content", chatNonce));
+        check("chat " + StompDestinations.rideChat(ride.id()) + " A -> B", chat, timeoutMs, failures);
+
+        // status: NotificationService on A -> broker -> subscriber on B
+        String statusNonce = "relay-status-" + UUID.randomUUID();
+        CompletableFuture<Void> status = expect(listenerOnB, StompDestinations.rideStatus(ride.id()), "rideNotes", statusNonce);
+        RideDTO update = new RideDTO();
+        update.setId(ride.id());
+        update.setRideNotes(statusNonce);
+        nodeA.getBean(NotificationService.class).notifyRideStatusUpdate(update);
+        check("status " + StompDestinations.rideStatus(ride.id()) + " A -> B", status, timeoutMs, failures);
+
+        // user: convertAndSendToUser on A for a user whose only session is on B
+        String userNonce = "relay-user-" + UUID.randomUUID();
+        CompletableFuture<Void> user = expect(otherUserOnB, "/user/queue/bookings", "message", userNonce);
+        nodeA.getBean(NotificationService.class).sendBookingUpdateNotification(otherUser, "relay-check", BookingStatus.CONFIRMED, userNonce);
+        check("user destination /user/queue/bookings A -> B", user, timeoutMs, failures);
+
+        // direct: SEND to the topic itself must not get past node A's inbound interceptor
+        String directNonce = "relay-direct-" + UUID.randomUUID();
+        CompletableFuture<Void> leaked = expect(listenerOnB, StompDestinations.rideChat(ride.id()), "content", directNonce);
+        CompletableFuture<Void> rejected = expect(senderOnA, "/user/queue/errors", "destination", StompDestinations.rideChat(ride.id()));
+        senderOnA.send(StompDestinations.rideChat(ride.id()), Map.of("content", directNonce));
+        check("direct SEND to " + StompDestinations.rideChat(ride.id()) + " rejected", rejected, timeoutMs, failures);
+        Thread.sleep(1000); // The error and any leaked message travel the same relay; give a leak time to show
+        if (leaked.isDone()) {
+            System.out.println("FAIL direct SEND reached the subscriber on node B");
+            failures.add("direct SEND not blocked");
+        } else {
+            System.out.println("PASS direct SEND not delivered to node B");
+        }
+
+        senderOnA.disconnect();
+        listenerOnB.disconnect();
+        otherUserOnB.disconnect();
+        heartbeats.shutdown();
+        nodeA.close();
+        nodeB.close();
+        if (artemis != null) {
+            artemis.stop();
+        }
+        mongo.close();
+
+        System.out.println(failures.isEmpty() ? "All relay checks passed." : "FAILED: " + failures);
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startNode(String name, List<String> properties) throws IOException {
+        List<String> own = new ArrayList<>(properties);
+        own.add("spring.application.name=" + name);
+        own.add("file.upload-dir=" + Files.createTempDirectory(name + "-uploads"));
+        // As command-line arguments: default properties would lose to application.properties (the Atlas URI)
+        return new SpringApplicationBuilder(Application.class).run(own.stream().map(p -> "--" + p).toArray(String[]::new));
+    }
+
+    private static EmbeddedActiveMQ startArtemis(String host, int port) throws Exception {
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                // Everything multicast. A user destination relayed by another node arrives on the "system" session as
+                // a MESSAGE carrying destination-type=MULTICAST, and Spring re-sends it with that header; with an
+                // anycast /queue/ prefix Artemis would route it past the per-session queue. Each /queue/...-user{session}
+                // has a single subscriber, so fan-out and point-to-point deliver the same here.
+                .addAcceptorConfiguration("stomp", "tcp://" + host + ":" + port
+                        + "?protocols=STOMP;multicastPrefix=/topic/,/queue/");
+        configuration.setBrokerInstance(Files.createTempDirectory("relaytest-artemis").toFile());
+        EmbeddedActiveMQ server = new EmbeddedActiveMQ();
+        server.setConfiguration(configuration);
+        server.start();
+        return server;
+    }
+
+    private static StompSession connect(WebSocketStompClient client, String baseUrl, String token) throws Exception {
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.add("Authorization", "Bearer " + token);
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        return client.connectAsync(baseUrl + "/api/ws", handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {})
+                .get(30, TimeUnit.SECONDS);
+    }
+
+    // Subscribes and completes once a frame whose JSON payload has field == nonce arrives
+    private static CompletableFuture<Void> expect(StompSession session, String destination, String field, String nonce) throws InterruptedException {
+        CompletableFuture<Void> received = new CompletableFuture<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                if (nonce.equals(((Map<?, ?>) payload).get(field))) {
+                    received.complete(null);
+                }
+            }
+        });
+        Thread.sleep(500); // Let the SUBSCRIBE reach the broker (through node B's relay) before anything is sent
+        return received;
+    }
+
+    private static void check(String name, CompletableFuture<Void> received, long timeoutMs, List<String> failures) {
+        try {
+            received.get(timeoutMs, TimeUnit.MILLISECONDS);
+            System.out.println("PASS " + name);
+        } catch (Exception e) {
+            System.out.println("FAIL " + name + " (nothing received within " + timeoutMs + " ms)");
+            failures.add(name);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("-") || eq < 0) {
+                throw new IllegalArgumentException("Expected -name=value, got: " + arg);
+            }
+            options.put(arg.substring(1, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
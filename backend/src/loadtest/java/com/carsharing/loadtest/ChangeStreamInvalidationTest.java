@@ -0,0 +1,222 @@
+package com.carsharing.loadtest;
+
+import com.carsharing.Application;
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.RideStatus;
+import com.carsharing.backend.service.RideService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Multi-node check of change stream cache invalidation (cache.change-streams.enabled=true): boots two backend
+ * nodes in this JVM on one single-node replica set, writes a ride through node A and verifies that node B's
+ * ride search (RideSearchCache over RideSearchIndex) stops serving the old version.
+ *
+ * Checks (each failing after -timeout-ms):
+ * - invalidate: node B has the ride's route cached; node A lowers the ride's seats; B's search shows the new
+ *               count. The search cache TTL is set far above the timeout, so only invalidation can explain it.
+ * - resume:     node B is stopped (saving its resume token), node A changes the ride again, and B is restarted
+ *               with the same node ID: B replays the missed change from its token (cache.invalidation.events
+ *               for rides) without a full reload (cache.invalidation.fallbacks stays 0), and its search is current.
+ * - lost token: node B is stopped and its saved token is rewound to a point before the oplog starts, the way
+ *               it looks after the oplog rolled over during a long outage. On restart MongoDB refuses to resume
+ *               (ChangeStreamHistoryLost); B counts a fallback, reopens the stream from now and invalidates
+ *               again on the next write from A.
+ *
+ * The deployment is an embedded mongod started as replica set rs0 unless -mongo is a URI of an existing replica set
+ * (change streams do not work on a standalone mongod).
+ *
+ * Options (-name=value): mongo (embedded | mongodb://... URI; default embedded), mongo-version (V6_0), timeout-ms (15000).
+ * Exits with status 1 if any check fails.
+ */
+public class ChangeStreamInvalidationTest {
+
+    private static final String DATABASE = "carsharing_changestreamtest";
+    private static final String NODE_A = "cs-node-a";
+    private static final String NODE_B = "cs-node-b";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        long timeoutMs = Long.parseLong(options.getOrDefault("timeout-ms", "15000"));
+
+        // --- MongoDB (replica set, shared by both nodes) ---
+        EmbeddedMongo mongo = EmbeddedMongo.startReplicaSet(options.getOrDefault("mongo", "embedded"), options.getOrDefault("mongo-version", "V6_0"));
+        String mongoUri = mongo.uri(DATABASE);
+        Ride ride;
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, DATABASE);
+            mongoTemplate.getDb().drop();
+            new SyntheticDataGenerator(mongoTemplate, 11).seed(2, 4, 20, 0);
+            // A searchable ride with seats to take away in every check
+            ride = mongoTemplate.findOne(Query.query(Criteria.where("status").is(RideStatus.SCHEDULED)
+                    .and("departureTime").gt(LocalDateTime.now().plusHours(1))
+                    .and("availableSeats").gte(4)), Ride.class);
+        }
+        if (ride == null) {
+            throw new IllegalStateException("Seed produced no scheduled ride with at least 4 free seats");
+        }
+        LocalDateTime searchFrom = ride.getDepartureTime().minusMinutes(1);
+
+        List<String> nodeProperties = List.of(
+                "spring.data.mongodb.uri=" + mongoUri,
+                "server.port=0",
+                "mongodb.transactions.enabled=true",
+                "cache.change-streams.enabled=true",
+                "cache.change-streams.token-save-interval-ms=200",
+                "rides.search-cache.ttl-ms=600000");
+        ConfigurableApplicationContext nodeA = startNode(NODE_A, nodeProperties);
+        ConfigurableApplicationContext nodeB = startNode(NODE_B, nodeProperties);
+        List<String> failures = new ArrayList<>();
+        waitFor("node B change stream open", () -> connected(nodeB), timeoutMs, failures);
+
+        // invalidate: warm node B's cache for the route, then write on node A
+        int seats = ride.getAvailableSeats();
+        if (seatsSeenBy(nodeB, ride, searchFrom) != seats) {
+            throw new IllegalStateException("Node B does not see ride " + ride.getId() + " with " + seats + " seats before any write");
+        }
+        setSeats(nodeA, ride, --seats);
+        int invalidated = seats;
+        waitFor("invalidate: node B sees " + invalidated + " seats written on node A",
+                () -> seatsSeenBy(nodeB, ride, searchFrom) == invalidated, timeoutMs, failures);
+
+        // resume: change the ride while node B is down, restart B with the same node ID
+        Thread.sleep(500); // Past the token save interval, so B's token already covers the first write
+        nodeB.close(); // Saves the resume token on the way out
+        setSeats(nodeA, ride, --seats);
+        int missed = seats;
+        ConfigurableApplicationContext restartedB = startNode(NODE_B, nodeProperties);
+        waitFor("resume: node B replays the change made while it was down",
+                () -> rideEvents(restartedB) >= 1, timeoutMs, failures);
+        report("resume: node B resumed without a full reload", fallbacks(restartedB) == 0, failures);
+        waitFor("resume: node B sees " + missed + " seats",
+                () -> seatsSeenBy(restartedB, ride, searchFrom) == missed, timeoutMs, failures);
+
+        // lost token: rewind B's saved token past the start of the oplog, restart, expect a full reload
+        Thread.sleep(500);
+        restartedB.close();
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            rewindToken(client.getDatabase(DATABASE).getCollection("change_stream_tokens"), NODE_B);
+        }
+        ConfigurableApplicationContext reloadedB = startNode(NODE_B, nodeProperties);
+        waitFor("lost token: node B falls back to a full reload",
+                () -> fallbacks(reloadedB) >= 1, timeoutMs, failures);
+        waitFor("lost token: node B change stream reopened", () -> connected(reloadedB), timeoutMs, failures);
+        setSeats(nodeA, ride, --seats);
+        int afterReload = seats;
+        waitFor("lost token: node B sees " + afterReload + " seats written after the reload",
+                () -> seatsSeenBy(reloadedB, ride, searchFrom) == afterReload, timeoutMs, failures);
+
+        nodeA.close();
+        reloadedB.close();
+        mongo.close();
+
+        System.out.println(failures.isEmpty() ? "All change stream checks passed." : "FAILED: " + failures);
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startNode(String name, List<String> properties) throws IOException {
+        List<String> own = new ArrayList<>(properties);
+        own.add("spring.application.name=" + name);
+        own.add("cache.change-streams.node-id=" + name); // Stable across restarts, so B finds its own token
+        own.add("file.upload-dir=" + Files.createTempDirectory(name + "-uploads"));
+        // As command-line arguments: default properties would lose to application.properties (the Atlas URI)
+        return new SpringApplicationBuilder(Application.class).run(own.stream().map(p -> "--" + p).toArray(String[]::new));
+    }
+
+    private static void setSeats(ConfigurableApplicationContext node, Ride ride, int seats) {
+        node.getBean(MongoTemplate.class).updateFirst(Query.query(Criteria.where("id").is(ride.getId())),
+                Update.update("availableSeats", seats), Ride.class);
+    }
+
+    // Seats of the ride in the node's (cached) search results, or -1 if the search doesn't return it
+    private static int seatsSeenBy(ConfigurableApplicationContext node, Ride ride, LocalDateTime searchFrom) {
+        List<RideDTO> results = node.getBean(RideService.class).searchRides(ride.getDepartureCity(), ride.getDestinationCity(),
+                ride.getDepartureState(), ride.getDestinationState(), searchFrom);
+        return results.stream().filter(r -> ride.getId().equals(r.getId())).mapToInt(RideDTO::getAvailableSeats).findFirst().orElse(-1);
+    }
+
+    private static boolean connected(ConfigurableApplicationContext node) {
+        Gauge gauge = node.getBean(MeterRegistry.class).find("cache.invalidation.connected").gauge();
+        return gauge != null && gauge.value() == 1;
+    }
+
+    private static double rideEvents(ConfigurableApplicationContext node) {
+        Counter counter = node.getBean(MeterRegistry.class).find("cache.invalidation.events").tag("collection", "rides").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static double fallbacks(ConfigurableApplicationContext node) {
+        Counter counter = node.getBean(MeterRegistry.class).find("cache.invalidation.fallbacks").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    /**
+     * Replaces the cluster time in the node's saved resume token with Timestamp(1, 1). A resume token's _data is a
+     * hex KeyString that starts with the Timestamp type byte (82) followed by the 8-byte cluster time; everything
+     * after it stays valid, so the server parses the token but finds its position older than the oldest oplog entry.
+     */
+    private static void rewindToken(MongoCollection<Document> tokens, String nodeId) {
+        Document saved = tokens.find(Filters.eq("_id", nodeId)).first();
+        if (saved == null || !(saved.get("token") instanceof Document token) || !(token.get("_data") instanceof String data)
+                || !data.startsWith("82") || data.length() < 18) {
+            throw new IllegalStateException("No usable saved resume token for " + nodeId + ": " + saved);
+        }
+        String rewound = "82" + "0000000100000001" + data.substring(18);
+        tokens.updateOne(Filters.eq("_id", nodeId), Updates.set("token._data", rewound));
+        System.out.println("Rewound resume token of " + nodeId + " to cluster time (1, 1)");
+    }
+
+    private static void waitFor(String name, BooleanSupplier condition, long timeoutMs, List<String> failures) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                report(name + " (not within " + timeoutMs + " ms)", false, failures);
+                return;
+            }
+            Thread.sleep(200);
+        }
+        report(name, true, failures);
+    }
+
+    private static void report(String name, boolean passed, List<String> failures) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if (!passed) {
+            failures.add(name);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("-") || eq < 0) {
+                throw new IllegalArgumentException("Expected -name=value, got: " + arg);
+            }
+            options.put(arg.substring(1, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,99 @@
+package com.carsharing.loadtest;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import de.flapdoodle.embed.mongo.commands.MongodArguments;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import de.flapdoodle.reverse.transitions.Start;
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * Embedded mongod for the harnesses (flapdoodle; the binary is downloaded on first use), or an existing
+ * deployment when -mongo is a URI. Both forms hand the harness a connection string for its own database.
+ */
+final class EmbeddedMongo implements AutoCloseable {
+
+    private static final String REPLICA_SET = "rs0";
+
+    private final TransitionWalker.ReachedState<RunningMongodProcess> process; // null for an external deployment
+    private final String baseUri; // Without database
+
+    private EmbeddedMongo(TransitionWalker.ReachedState<RunningMongodProcess> process, String baseUri) {
+        this.process = process;
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * @param mongo "embedded" or a mongodb:// URI (its database part, if any, is ignored)
+     * @param version flapdoodle Version.Main name, e.g. V6_0
+     */
+    static EmbeddedMongo start(String mongo, String version) {
+        if (!mongo.equals("embedded")) {
+            return new EmbeddedMongo(null, mongo.replaceFirst("^(mongodb(\\+srv)?://[^/?]+)/?[^?]*", "$1/"));
+        }
+        Version.Main main = Version.Main.valueOf(version);
+        System.out.println("Starting embedded mongod " + main + " (downloaded on first use)...");
+        TransitionWalker.ReachedState<RunningMongodProcess> process = Mongod.instance().start(main);
+        ServerAddress address = process.current().getServerAddress();
+        return new EmbeddedMongo(process, "mongodb://" + address.getHost() + ":" + address.getPort() + "/");
+    }
+
+    /**
+     * Like {@link #start(String, String)}, but the embedded mongod runs as a single-node replica set, which change
+     * streams and transactions need. A URI must already point at a replica set.
+     */
+    static EmbeddedMongo startReplicaSet(String mongo, String version) {
+        if (!mongo.equals("embedded")) {
+            return start(mongo, version);
+        }
+        Version.Main main = Version.Main.valueOf(version);
+        System.out.println("Starting embedded mongod " + main + " as replica set " + REPLICA_SET + " (downloaded on first use)...");
+        TransitionWalker.ReachedState<RunningMongodProcess> process = Mongod.instance()
+                .withMongodArguments(Start.to(MongodArguments.class)
+                        .initializedWith(MongodArguments.defaults().withReplication(Storage.of(REPLICA_SET, 50))))
+                .start(main);
+        ServerAddress address = process.current().getServerAddress();
+        String member = address.getHost() + ":" + address.getPort();
+        // directConnection: talk to the member as given, without rediscovering it under its replica set host name
+        String baseUri = "mongodb://" + member + "/?directConnection=true";
+        try (MongoClient client = MongoClients.create(baseUri)) {
+            MongoDatabase admin = client.getDatabase("admin");
+            admin.runCommand(new Document("replSetInitiate", new Document("_id", REPLICA_SET)
+                    .append("members", List.of(new Document("_id", 0).append("host", member)))));
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (!admin.runCommand(new Document("hello", 1)).getBoolean("isWritablePrimary", false)) {
+                if (System.currentTimeMillis() > deadline) {
+                    process.close();
+                    throw new IllegalStateException("Replica set " + REPLICA_SET + " on " + member + " elected no primary within 30 s");
+                }
+                Thread.sleep(200);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.close();
+            throw new IllegalStateException("Interrupted while waiting for a primary", e);
+        }
+        return new EmbeddedMongo(process, baseUri);
+    }
+
+    // Connection string for the given database, keeping any options of the original URI
+    String uri(String database) {
+        int options = baseUri.indexOf('?');
+        return options < 0 ? baseUri + database : baseUri.substring(0, options) + database + baseUri.substring(options);
+    }
+
+    @Override
+    public void close() {
+        if (process != null) {
+            process.close();
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package com.carsharing.loadtest;
+
+import com.carsharing.Application;
+import com.carsharing.backend.config.JwtUtil;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.RideStatus;
+import com.carsharing.backend.util.StompDestinations;
+import com.carsharing.loadtest.SyntheticDataGenerator.City;
+import com.carsharing.loadtest.SyntheticDataGenerator.PendingBooking;
+import com.carsharing.loadtest.SyntheticDataGenerator.SeedRide;
+import com.carsharing.loadtest.SyntheticDataGenerator.Seeded;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * End-to-end load test: starts MongoDB (embedded mongod, or a local one), seeds synthetic users, rides and
+ * bookings (SyntheticDataGenerator), boots the backend in this JVM and drives a weighted mix of scenarios
+ * over HTTP and STOMP from a pool of worker threads. Prints throughput, p50 and p99 per endpoint and writes
+ * the same numbers as JSON.
+ *
+ * Scenarios (-mix=name:weight,...; default search:40,nearby:15,book:15,confirm:10,chat:15,upload:5):
+ * - search:  GET  /api/rides/search (corridor search between two seeded cities)
+ * - nearby:  GET  /api/rides/search/nearby (radius search around two city centres)
+ * - book:    POST /api/rides/request/{rideId} as a random passenger (rejections, e.g. full rides, count as errors)
+ * - hotbook: the same request for one of -hot-rides seeded rides, so concurrent requests update the same ride and
+ *            outbox counter and their transactions conflict (not in the default mix; e.g. -mix=hotbook:1 -threads=64)
+ * - confirm: POST /api/driver/bookings/{bookingId}/confirm for a pending booking (seeded or from "book")
+ * - chat:    STOMP SEND to /app/ride/{rideId}/chat.sendMessage, timed until the broadcast comes back
+ * - upload:  POST /api/documents/me (multipart, -upload-kb)
+ * - myrides: GET  /api/driver/my-rides as a random driver (not in the default mix)
+ * Requests are authenticated with JWTs minted locally (JwtUtil), so logins don't dominate the mix.
+ * Responses with a 5xx status are also tallied per endpoint as "server:<endpoint>" (a full ride is a 4xx; a
+ * transaction that conflicted past its retries is a 500).
+ *
+ * Options (-name=value):
+ *   mongo (embedded | mongodb://... URI; default embedded), mongo-version (V6_0),
+ *   transactions (mongodb.transactions.enabled of the booted backend; default true, and the embedded mongod is then
+ *   a single-node replica set; false starts a standalone one),
+ *   reset (drop the database before seeding; default true for embedded; a non-empty database is never seeded),
+ *   url (drive an already running backend on the same database instead of booting one),
+ *   drivers (500), passengers (2000), rides (20000), bookings (20000), seed (42),
+ *   threads (32), warmup-s (10), duration-s (60), mix, upload-kb (200), hot-rides (2), report (target/loadtest-report.json).
+ * Radius search benchmark over a large data set: -rides=1000000 -bookings=0 -mix=nearby:1
+ */
+public class EndToEndLoadTest {
+
+    private static final String DATABASE = "carsharing_loadtest";
+    private static final double NEARBY_RADIUS_KM = 25;
+    private static final long CHAT_TIMEOUT_MS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String mongo = options.getOrDefault("mongo", "embedded");
+        boolean embedded = mongo.equals("embedded");
+        boolean reset = Boolean.parseBoolean(options.getOrDefault("reset", String.valueOf(embedded)));
+        boolean transactions = Boolean.parseBoolean(options.getOrDefault("transactions", "true"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "32"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup-s", "10"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration-s", "60"));
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", "search:40,nearby:15,book:15,confirm:10,chat:15,upload:5"));
+        File report = new File(options.getOrDefault("report", "target/loadtest-report.json"));
+
+        // --- MongoDB ---
+        EmbeddedMongo mongod = null;
+        String mongoUri = mongo;
+        if (embedded) {
+            String version = options.getOrDefault("mongo-version", "V6_0");
+            // Transactions need a replica set; a standalone mongod rejects them
+            mongod = transactions ? EmbeddedMongo.startReplicaSet(mongo, version) : EmbeddedMongo.start(mongo, version);
+            mongoUri = mongod.uri(DATABASE);
+        }
+        String database = new ConnectionString(mongoUri).getDatabase();
+        if (database == null) {
+            throw new IllegalArgumentException("The Mongo URI must name a database: " + mongoUri);
+        }
+
+        // --- Seed ---
+        Seeded seeded;
+        List<SeedRide> hotRides;
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, database);
+            if (reset) {
+                mongoTemplate.getDb().drop();
+            } else if (mongoTemplate.getDb().listCollectionNames().first() != null) {
+                throw new IllegalStateException("Database " + database + " is not empty; pass -reset=true to drop it first");
+            }
+            seeded = new SyntheticDataGenerator(mongoTemplate, Long.parseLong(options.getOrDefault("seed", "42"))).seed(
+                    Integer.parseInt(options.getOrDefault("drivers", "500")),
+                    Integer.parseInt(options.getOrDefault("passengers", "2000")),
+                    Integer.parseInt(options.getOrDefault("rides", "20000")),
+                    Integer.parseInt(options.getOrDefault("bookings", "20000")));
+            hotRides = prepareHotRides(mongoTemplate, seeded, Integer.parseInt(options.getOrDefault("hot-rides", "2")));
+        }
+
+        // --- Backend ---
+        ConfigurableApplicationContext app = null;
+        String baseUrl = options.get("url");
+        if (baseUrl == null) {
+            String uploadDir = Files.createTempDirectory("loadtest-uploads").toString();
+            // As command-line arguments: default properties would lose to application.properties (the Atlas URI)
+            app = new SpringApplicationBuilder(Application.class)
+                    .run("--spring.data.mongodb.uri=" + mongoUri,
+                            "--server.port=0",
+                            "--file.upload-dir=" + uploadDir,
+                            // Synthetic users chat far faster than people; the limiter would turn the chat scenario into 'throttled'
+                            "--chat.rate-limit.enabled=false",
+                            "--mongodb.transactions.enabled=" + transactions);
+            baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            System.out.println("Backend started at " + baseUrl + " (uploads in " + uploadDir + ")");
+        }
+
+        // --- Run ---
+        LoadTestRun run = new LoadTestRun(baseUrl, seeded, mix,
+                Integer.parseInt(options.getOrDefault("upload-kb", "200")) * 1024, hotRides);
+        Map<String, Object> results = run.execute(threads, warmupSeconds, durationSeconds);
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("startedAt", LocalDateTime.now().minusSeconds(warmupSeconds + durationSeconds).toString());
+        document.put("options", options);
+        document.put("threads", threads);
+        document.put("durationSeconds", durationSeconds);
+        document.put("endpoints", results);
+        File parent = report.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report, document);
+        System.out.println("Report written to " + report.getPath());
+
+        run.close();
+        if (app != null) {
+            app.close();
+        }
+        if (mongod != null) {
+            mongod.close();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * One measured run: workers loop over weighted scenarios until the deadline; samples taken during warm-up
+     * are discarded.
+     */
+    private static final class LoadTestRun {
+
+        private final String baseUrl;
+        private final Seeded seeded;
+        private final String[] scenarioTable; // Scenario names repeated by weight, picked uniformly
+        private final byte[] uploadBytes;
+        private final List<SeedRide> hotRides; // Targets of the hotbook scenario
+
+        private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final JwtUtil jwtUtil = new JwtUtil();
+        private final Map<String, String> tokens = new ConcurrentHashMap<>();
+        private final Queue<PendingBooking> pendingBookings = new ConcurrentLinkedQueue<>();
+
+        private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+        private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+        private volatile boolean recording = false;
+
+        private final ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        private final WebSocketStompClient stompClient;
+
+        LoadTestRun(String baseUrl, Seeded seeded, Map<String, Integer> mix, int uploadSize, List<SeedRide> hotRides) {
+            this.baseUrl = baseUrl;
+            this.seeded = seeded;
+            this.pendingBookings.addAll(seeded.requestedBookings());
+            List<String> table = new ArrayList<>();
+            mix.forEach((scenario, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    table.add(scenario);
+                }
+            });
+            this.scenarioTable = table.toArray(String[]::new);
+            this.uploadBytes = new byte[uploadSize];
+            ThreadLocalRandom.current().nextBytes(uploadBytes);
+            this.hotRides = hotRides;
+
+            heartbeatScheduler.setPoolSize(2);
+            heartbeatScheduler.initialize();
+            stompClient = new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+            stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+            stompClient.setTaskScheduler(heartbeatScheduler);
+        }
+
+        Map<String, Object> execute(int threads, long warmupSeconds, long durationSeconds) throws Exception {
+            long start = System.nanoTime();
+            long recordFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long deadline = recordFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            List<ChatSession> chatSessions = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                ChatSession chat = new ChatSession(i);
+                chatSessions.add(chat);
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        runOne(chat);
+                    }
+                });
+            }
+            System.out.printf("Running %d workers: %d s warm-up, %d s measured...%n", threads, warmupSeconds, durationSeconds);
+            Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(recordFrom - System.nanoTime())));
+            recording = true;
+            long measuredFrom = System.nanoTime();
+            workers.shutdown();
+            workers.awaitTermination(durationSeconds + 60, TimeUnit.SECONDS);
+            double measuredSeconds = Math.max(1e-9, (System.nanoTime() - measuredFrom) / 1e9);
+            chatSessions.forEach(ChatSession::close);
+            return report(measuredSeconds);
+        }
+
+        private void runOne(ChatSession chat) {
+            String scenario = scenarioTable[ThreadLocalRandom.current().nextInt(scenarioTable.length)];
+            try {
+                switch (scenario) {
+                    case "search" -> search();
+                    case "nearby" -> nearby();
+                    case "book" -> book();
+                    case "hotbook" -> hotBook();
+                    case "confirm" -> confirm();
+                    case "chat" -> chat.send();
+                    case "upload" -> upload();
+                    case "myrides" -> myRides();
+                    default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                error("client:" + scenario); // Connection failures etc.; not attributable to an endpoint
+            }
+        }
+
+        // --- Scenarios ---
+
+        private void search() throws Exception {
+            SeedRide ride = randomRide();
+            String query = "departureCity=" + encode(ride.from().name()) + "&departureState=" + ride.from().state()
+                    + "&destinationCity=" + encode(ride.to().name()) + "&destinationState=" + ride.to().state();
+            get("GET /api/rides/search", "/api/rides/search?" + query, randomPassenger());
+        }
+
+        private void nearby() throws Exception {
+            SeedRide ride = randomRide();
+            City from = ride.from();
+            City to = ride.to();
+            String query = "originLat=" + from.latitude() + "&originLng=" + from.longitude() + "&originRadiusKm=" + NEARBY_RADIUS_KM
+                    + "&destinationLat=" + to.latitude() + "&destinationLng=" + to.longitude() + "&destinationRadiusKm=" + NEARBY_RADIUS_KM;
+            get("GET /api/rides/search/nearby", "/api/rides/search/nearby?" + query, randomPassenger());
+        }
+
+        private void myRides() throws Exception {
+            String driver = seeded.driverEmails().get(ThreadLocalRandom.current().nextInt(seeded.driverEmails().size()));
+            get("GET /api/driver/my-rides", "/api/driver/my-rides", driver);
+        }
+
+        private void book() throws Exception {
+            requestBooking("POST /api/rides/request/{rideId}", randomRide());
+        }
+
+        private void hotBook() throws Exception {
+            requestBooking("POST /api/rides/request/{rideId} (hot)", hotRides.get(ThreadLocalRandom.current().nextInt(hotRides.size())));
+        }
+
+        private void requestBooking(String endpoint, SeedRide ride) throws Exception {
+            HttpRequest request = authorized("/api/rides/request/" + ride.id(), randomPassenger())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"requestedSeats\":1}"))
+                    .build();
+            HttpResponse<String> response = send(endpoint, request);
+            if (response.statusCode() / 100 == 2) {
+                JsonNode id = objectMapper.readTree(response.body()).get("id");
+                if (id != null) {
+                    pendingBookings.add(new PendingBooking(id.asText(), ride.driverEmail()));
+                }
+            }
+        }
+
+        private void confirm() throws Exception {
+            PendingBooking booking = pendingBookings.poll();
+            if (booking == null) {
+                book(); // Nothing to confirm yet; create demand instead
+                return;
+            }
+            HttpRequest request = authorized("/api/driver/bookings/" + booking.bookingId() + "/confirm", booking.driverEmail())
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            send("POST /api/driver/bookings/{bookingId}/confirm", request);
+        }
+
+        private void upload() throws Exception {
+            String boundary = "----loadtest" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+            ByteArrayOutputStream body = new ByteArrayOutputStream(uploadBytes.length + 512);
+            body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"documentType\"\r\n\r\nDRIVING_LICENSE\r\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"license.pdf\"\r\n"
+                    + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(uploadBytes);
+            body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            HttpRequest request = authorized("/api/documents/me", randomPassenger())
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+            send("POST /api/documents/me", request);
+        }
+
+        /**
+         * One STOMP session per worker, as the driver of a ride that has confirmed passengers (so chat is allowed),
+         * subscribed to that ride's chat topic. A send is timed until its own broadcast arrives.
+         */
+        private final class ChatSession {
+            private final int worker;
+            private final Map<String, CompletableFuture<Void>> awaiting = new ConcurrentHashMap<>();
+            private StompSession session;
+            private SeedRide ride;
+            private long sequence;
+
+            ChatSession(int worker) {
+                this.worker = worker;
+            }
+
+            void send() throws Exception {
+                if (seeded.ridesWithPassengers().isEmpty()) {
+                    search(); // No ride has a confirmed passenger (e.g. -bookings=0): nothing to chat about
+                    return;
+                }
+                if (session == null || !session.isConnected()) {
+                    connect();
+                }
+                String nonce = "lt-" + worker + "-" + (++sequence);
+                CompletableFuture<Void> delivered = new CompletableFuture<>();
+                awaiting.put(nonce, delivered);
+                long start = System.nanoTime();
+                session.send("/app/ride/" + ride.id() + "/chat.sendMessage", Map.of("content", nonce));
+                try {
+                    delivered.get(CHAT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    record("STOMP /app/ride/{rideId}/chat.sendMessage", System.nanoTime() - start, true);
+                } catch (TimeoutException e) {
+                    record("STOMP /app/ride/{rideId}/chat.sendMessage", System.nanoTime() - start, false);
+                } finally {
+                    awaiting.remove(nonce);
+                }
+            }
+
+            private void connect() throws Exception {
+                ride = seeded.ridesWithPassengers().get(worker % seeded.ridesWithPassengers().size());
+                String token = token(ride.driverEmail());
+                WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+                handshakeHeaders.add("Authorization", "Bearer " + token);
+                StompHeaders connectHeaders = new StompHeaders();
+                connectHeaders.add("Authorization", "Bearer " + token);
+                session = stompClient.connectAsync(baseUrl + "/api/ws", handshakeHeaders, connectHeaders,
+                        new StompSessionHandlerAdapter() {}).get(30, TimeUnit.SECONDS);
+                session.subscribe(StompDestinations.rideChat(ride.id()), new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return Map.class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        CompletableFuture<Void> delivered = awaiting.get(String.valueOf(((Map<?, ?>) payload).get("content")));
+                        if (delivered != null) {
+                            delivered.complete(null);
+                        }
+                    }
+                });
+                Thread.sleep(200); // Let the SUBSCRIBE reach the broker before the first send
+            }
+
+            void close() {
+                if (session != null && session.isConnected()) {
+                    session.disconnect();
+                }
+            }
+        }
+
+        // --- HTTP helpers ---
+
+        private void get(String endpoint, String path, String email) throws Exception {
+            send(endpoint, authorized(path, email).GET().build());
+        }
+
+        private HttpRequest.Builder authorized(String path, String email) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + token(email));
+        }
+
+        private HttpResponse<String> send(String endpoint, HttpRequest request) throws Exception {
+            long start = System.nanoTime();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            record(endpoint, System.nanoTime() - start, response.statusCode() / 100 == 2);
+            if (response.statusCode() / 100 == 5) {
+                error("server:" + endpoint);
+            }
+            return response;
+        }
+
+        private String token(String email) {
+            return tokens.computeIfAbsent(email, e -> jwtUtil.generateToken(e, List.of())); // Roles come from the DB
+        }
+
+        private SeedRide randomRide() {
+            return seeded.rides().get(ThreadLocalRandom.current().nextInt(seeded.rides().size()));
+        }
+
+        private String randomPassenger() {
+            return seeded.passengerEmails().get(ThreadLocalRandom.current().nextInt(seeded.passengerEmails().size()));
+        }
+
+        private static String encode(String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+
+        // --- Measurements ---
+
+        private void record(String endpoint, long nanos, boolean success) {
+            if (!recording) {
+                return;
+            }
+            timers.computeIfAbsent(endpoint, name -> Timer.builder("loadtest.latency").tag("endpoint", name)
+                            .publishPercentiles(0.5, 0.99)
+                            .distributionStatisticExpiry(Duration.ofDays(1)) // Percentiles over the whole run, not a sliding window
+                            .distributionStatisticBufferLength(1)
+                            .register(registry))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            if (!success) {
+                error(endpoint);
+            }
+        }
+
+        private void error(String endpoint) {
+            if (recording) {
+                errors.computeIfAbsent(endpoint, name -> Counter.builder("loadtest.errors").tag("endpoint", name).register(registry))
+                        .increment();
+            }
+        }
+
+        private Map<String, Object> report(double measuredSeconds) {
+            Map<String, Object> results = new LinkedHashMap<>();
+            System.out.printf("%n%-46s %9s %7s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+            timers.keySet().stream().sorted().forEach(endpoint -> {
+                Timer timer = timers.get(endpoint);
+                Map<String, Double> percentiles = new HashMap<>();
+                for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+                    percentiles.put(value.percentile() == 0.5 ? "p50" : "p99", value.value(TimeUnit.MILLISECONDS));
+                }
+                long errorCount = errors.containsKey(endpoint) ? (long) errors.get(endpoint).count() : 0;
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("requests", timer.count());
+                row.put("errors", errorCount);
+                row.put("throughputPerSecond", timer.count() / measuredSeconds);
+                row.put("p50Ms", percentiles.get("p50"));
+                row.put("p99Ms", percentiles.get("p99"));
+                row.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+                row.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+                results.put(endpoint, row);
+                System.out.printf("%-46s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", endpoint, timer.count(), errorCount,
+                        timer.count() / measuredSeconds, percentiles.get("p50"), percentiles.get("p99"), timer.max(TimeUnit.MILLISECONDS));
+            });
+            errors.keySet().stream().filter(name -> name.startsWith("client:") || name.startsWith("server:")).sorted().forEach(name -> {
+                System.out.printf("%-46s %9s %7d%n", name, "", (long) errors.get(name).count());
+                results.put(name, Map.of("errors", (long) errors.get(name).count()));
+            });
+            return results;
+        }
+
+        void close() {
+            stompClient.stop();
+            heartbeatScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Makes the first seeded rides bookable for the whole run (scheduled, a week out, practically unlimited seats), so
+     * hotbook keeps writing to them instead of being turned away once they are full. Each passenger can still request
+     * a given ride only once.
+     */
+    private static List<SeedRide> prepareHotRides(MongoTemplate mongoTemplate, Seeded seeded, int count) {
+        List<SeedRide> hot = List.copyOf(seeded.rides().subList(0, Math.max(1, Math.min(count, seeded.rides().size()))));
+        mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(hot.stream().map(SeedRide::id).toList())),
+                new Update().set("status", RideStatus.SCHEDULED)
+                        .set("departureTime", LocalDateTime.now().plusDays(7))
+                        .set("availableSeats", 1_000_000),
+                Ride.class);
+        return hot;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            if (weight > 0) {
+                weights.put(parts[0], weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty scenario mix: " + mix);
+        }
+        return weights;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("-") || eq < 0) {
+                throw new IllegalArgumentException("Expected -name=value, got: " + arg);
+            }
+            options.put(arg.substring(1, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
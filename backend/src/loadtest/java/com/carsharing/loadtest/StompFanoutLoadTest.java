@@ -0,0 +1,159 @@
+package com.carsharing.loadtest;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens N STOMP sessions against a running backend, subscribes them all to one topic, publishes M messages
+ * from an extra session and reports fan-out latency (publish -> delivery on each subscriber).
+ *
+ * Publisher and subscribers live in this JVM, so latency uses one clock. Messages go straight to the
+ * broker destination (no @MessageMapping), so this measures the transport and broker, not app logic.
+ *
+ * Options (-name=value): url (http://localhost:8080/api/ws), sessions (1000), messages (100), interval-ms (100),
+ * destination (/topic/loadtest), token (JWT sent on the handshake and CONNECT), connect-batch (200).
+ * At high session counts, raise the client's open-file limit first (ulimit -n).
+ */
+public class StompFanoutLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String url = options.getOrDefault("url", "http://localhost:8080/api/ws");
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "1000"));
+        int messages = Integer.parseInt(options.getOrDefault("messages", "100"));
+        long intervalMs = Long.parseLong(options.getOrDefault("interval-ms", "100"));
+        String destination = options.getOrDefault("destination", "/topic/loadtest");
+        String token = options.get("token");
+        int connectBatch = Integer.parseInt(options.getOrDefault("connect-batch", "200"));
+
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(4);
+        heartbeatScheduler.initialize();
+
+        WebSocketStompClient client = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        client.setMessageConverter(new StringMessageConverter());
+        client.setTaskScheduler(heartbeatScheduler);
+        client.setDefaultHeartbeat(new long[] {10000, 10000});
+
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        StompHeaders connectHeaders = new StompHeaders();
+        if (token != null) {
+            handshakeHeaders.add("Authorization", "Bearer " + token);
+            connectHeaders.add("Authorization", "Bearer " + token);
+        }
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Timer latency = Timer.builder("fanout.latency").publishPercentiles(0.5, 0.9, 0.99, 0.999).register(registry);
+        AtomicInteger failed = new AtomicInteger();
+
+        // --- Connect and subscribe ---
+        long connectStart = System.nanoTime();
+        List<StompSession> subscribers = new ArrayList<>(sessions);
+        for (int from = 0; from < sessions; from += connectBatch) {
+            List<CompletableFuture<StompSession>> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(sessions, from + connectBatch); i++) {
+                batch.add(client.connectAsync(url, handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {}));
+            }
+            for (var future : batch) {
+                try {
+                    StompSession session = future.get(30, TimeUnit.SECONDS);
+                    session.subscribe(destination, new LatencyHandler(latency));
+                    subscribers.add(session);
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                }
+            }
+        }
+        System.out.printf("Connected %d/%d sessions in %d ms (%d failed)%n", subscribers.size(), sessions,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart), failed.get());
+        if (subscribers.isEmpty()) {
+            System.exit(1);
+        }
+        Thread.sleep(1000); // Let SUBSCRIBE frames reach the broker before publishing
+
+        // --- Publish ---
+        StompSession publisher = client.connectAsync(url, handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {})
+                .get(30, TimeUnit.SECONDS);
+        for (int i = 0; i < messages; i++) {
+            publisher.send(destination, Long.toString(System.nanoTime()));
+            Thread.sleep(intervalMs);
+        }
+
+        // --- Report ---
+        long expected = (long) subscribers.size() * messages;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (latency.count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        long received = latency.count();
+        boolean complete = received >= expected;
+        System.out.printf("Delivered %d/%d messages%s%n", received, expected, complete ? "" : " (timed out waiting for the rest)");
+        System.out.printf("Fan-out latency ms: mean=%.2f max=%.2f%n",
+                latency.mean(TimeUnit.MILLISECONDS), latency.max(TimeUnit.MILLISECONDS));
+        for (var percentile : latency.takeSnapshot().percentileValues()) {
+            System.out.printf("  p%.1f = %.2f ms%n", percentile.percentile() * 100, percentile.value(TimeUnit.MILLISECONDS));
+        }
+
+        publisher.disconnect();
+        subscribers.forEach(StompSession::disconnect);
+        client.stop();
+        heartbeatScheduler.shutdown();
+        System.exit(0);
+    }
+
+    private static final class LatencyHandler implements StompFrameHandler {
+        private final Timer latency;
+
+        LatencyHandler(Timer latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return String.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            try {
+                long sentAt = Long.parseLong((String) payload);
+                latency.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+            } catch (NumberFormatException e) {
+                // Not ours (someone else publishing on the same topic); ignore
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("-") || eq < 0) {
+                throw new IllegalArgumentException("Expected -name=value, got: " + arg);
+            }
+            options.put(arg.substring(1, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
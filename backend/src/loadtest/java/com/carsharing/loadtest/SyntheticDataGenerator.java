@@ -0,0 +1,270 @@
+package com.carsharing.loadtest;
+
+import com.carsharing.backend.model.Booking;
+import com.carsharing.backend.model.BookingStatus;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.RideStatus;
+import com.carsharing.backend.model.User;
+import com.carsharing.backend.service.LocationNormalizer;
+import com.carsharing.backend.util.RouteKeys;
+import org.bson.types.ObjectId;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Seeds users, rides and bookings straight into MongoDB (bulk inserts), shaped like the data the app writes:
+ * rides carry their route keys and GeoJSON points, so both the corridor and the radius searches find them
+ * without the app's startup backfill, and booked seats are subtracted from the rides.
+ *
+ * Rides run between 25 US cities (alias dictionary codes for states), departing within the next 30 days,
+ * with origin/destination points scattered up to ~15 km around the city centre. Generation is seeded, so
+ * the same options produce the same data.
+ *
+ * Everything the scenarios need afterwards (emails, a sample of rides, pending bookings) is returned in
+ * {@link Seeded}; for large ride counts only a bounded random sample of rides is kept in memory.
+ */
+public class SyntheticDataGenerator {
+
+    public static final String PASSWORD = "loadtest";
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MAX_RIDE_SAMPLE = 50_000;
+    private static final double JITTER_DEGREES = 0.13; // ~15 km of latitude
+
+    public record City(String name, String state, double latitude, double longitude) {}
+
+    public record SeedRide(String id, String driverEmail, City from, City to) {}
+
+    public record PendingBooking(String bookingId, String driverEmail) {}
+
+    public record Seeded(List<String> driverEmails,
+                         List<String> passengerEmails,
+                         List<SeedRide> rides,                    // Random sample of the seeded rides
+                         List<PendingBooking> requestedBookings,  // For the confirm scenario
+                         List<SeedRide> ridesWithPassengers) {}   // Have confirmed bookings, so chat is allowed
+
+    public static final List<City> CITIES = List.of(
+            new City("New York", "NY", 40.7128, -74.0060), new City("Los Angeles", "CA", 34.0522, -118.2437),
+            new City("Chicago", "IL", 41.8781, -87.6298), new City("Houston", "TX", 29.7604, -95.3698),
+            new City("Phoenix", "AZ", 33.4484, -112.0740), new City("Philadelphia", "PA", 39.9526, -75.1652),
+            new City("San Antonio", "TX", 29.4241, -98.4936), new City("San Diego", "CA", 32.7157, -117.1611),
+            new City("Dallas", "TX", 32.7767, -96.7970), new City("Austin", "TX", 30.2672, -97.7431),
+            new City("San Jose", "CA", 37.3382, -121.8863), new City("Jacksonville", "FL", 30.3322, -81.6557),
+            new City("Columbus", "OH", 39.9612, -82.9988), new City("Charlotte", "NC", 35.2271, -80.8431),
+            new City("San Francisco", "CA", 37.7749, -122.4194), new City("Indianapolis", "IN", 39.7684, -86.1581),
+            new City("Seattle", "WA", 47.6062, -122.3321), new City("Denver", "CO", 39.7392, -104.9903),
+            new City("Boston", "MA", 42.3601, -71.0589), new City("Nashville", "TN", 36.1627, -86.7816),
+            new City("Portland", "OR", 45.5152, -122.6784), new City("Las Vegas", "NV", 36.1699, -115.1398),
+            new City("Atlanta", "GA", 33.7490, -84.3880), new City("Miami", "FL", 25.7617, -80.1918),
+            new City("Washington", "DC", 38.9072, -77.0369));
+
+    private final MongoTemplate mongoTemplate;
+    private final LocationNormalizer locationNormalizer;
+    private final Random random;
+
+    public SyntheticDataGenerator(MongoTemplate mongoTemplate, long seed) {
+        this.mongoTemplate = mongoTemplate;
+        this.locationNormalizer = new LocationNormalizer(new ClassPathResource("location-aliases.csv"));
+        this.locationNormalizer.loadAliases(); // Same dictionary (and version) the app keys rides with
+        this.random = new Random(seed);
+    }
+
+    public Seeded seed(int drivers, int passengers, int rides, int bookings) {
+        if (drivers < 1 || passengers < 1) {
+            throw new IllegalArgumentException("Need at least one driver and one passenger");
+        }
+        long start = System.nanoTime();
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD); // One hash for everyone: BCrypt is slow on purpose
+
+        List<User> driverUsers = insertUsers("driver", drivers, List.of("DRIVER", "PASSENGER"), "APPROVED", passwordHash);
+        List<User> passengerUsers = insertUsers("passenger", passengers, List.of("PASSENGER"), "NONE", passwordHash);
+        log("users", drivers + passengers, start);
+
+        // --- Rides, keeping a reservoir sample (with seat counts) for bookings and scenarios ---
+        List<SeedRide> sample = new ArrayList<>();
+        List<Ride> sampleRides = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        List<Ride> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rides; i++) {
+            User driver = driverUsers.get(random.nextInt(drivers));
+            Ride ride = ride(driver, now);
+            batch.add(ride);
+            int slot = i < MAX_RIDE_SAMPLE ? i : random.nextInt(i + 1);
+            if (slot < MAX_RIDE_SAMPLE) {
+                SeedRide seedRide = new SeedRide(ride.getId(), driver.getEmail(), city(ride.getDepartureCity()), city(ride.getDestinationCity()));
+                if (slot == sample.size()) {
+                    sample.add(seedRide);
+                    sampleRides.add(ride);
+                } else {
+                    sample.set(slot, seedRide);
+                    sampleRides.set(slot, ride);
+                }
+            }
+            if (batch.size() == BATCH_SIZE) {
+                mongoTemplate.insert(batch, Ride.class);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        // Bookings only go to sampled rides (still in memory); the seats they take are written back below
+        List<Booking> seededBookings = bookings(sample, sampleRides, passengerUsers, bookings, now);
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, Ride.class);
+        }
+        fixSeatsOfInsertedRides(sampleRides);
+        log("rides", rides, start);
+
+        Map<String, String> driverEmails = driverUsers.stream().collect(Collectors.toMap(User::getId, User::getEmail));
+        List<PendingBooking> requested = new ArrayList<>();
+        Set<String> withPassengers = new HashSet<>();
+        for (int from = 0; from < seededBookings.size(); from += BATCH_SIZE) {
+            mongoTemplate.insert(seededBookings.subList(from, Math.min(seededBookings.size(), from + BATCH_SIZE)), Booking.class);
+        }
+        for (Booking booking : seededBookings) {
+            if (booking.getStatus() == BookingStatus.REQUESTED) {
+                requested.add(new PendingBooking(booking.getId(), driverEmails.get(booking.getDriverId())));
+            } else if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                withPassengers.add(booking.getRideId());
+            }
+        }
+        log("bookings", seededBookings.size(), start);
+
+        return new Seeded(
+                driverUsers.stream().map(User::getEmail).toList(),
+                passengerUsers.stream().map(User::getEmail).toList(),
+                sample,
+                requested,
+                sample.stream().filter(r -> withPassengers.contains(r.id())).toList());
+    }
+
+    private List<User> insertUsers(String kind, int count, List<String> roles, String driverStatus, String passwordHash) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId(new ObjectId().toHexString());
+            user.setName("Load " + kind + " " + i);
+            user.setEmail("loadtest-" + kind + "-" + i + "@example.com");
+            user.setPassword(passwordHash);
+            user.setRoles(roles);
+            user.setDriverStatus(driverStatus);
+            users.add(user);
+        }
+        for (int from = 0; from < count; from += BATCH_SIZE) {
+            mongoTemplate.insert(users.subList(from, Math.min(count, from + BATCH_SIZE)), User.class);
+        }
+        return users;
+    }
+
+    private Ride ride(User driver, LocalDateTime now) {
+        City from = CITIES.get(random.nextInt(CITIES.size()));
+        City to = CITIES.get(random.nextInt(CITIES.size()));
+        while (to == from) {
+            to = CITIES.get(random.nextInt(CITIES.size()));
+        }
+        Ride ride = new Ride();
+        ride.setId(new ObjectId().toHexString());
+        ride.setDriverId(driver.getId());
+        ride.setDepartureCity(from.name());
+        ride.setDepartureState(from.state());
+        ride.setDestinationCity(to.name());
+        ride.setDestinationState(to.state());
+        ride.setDepartureAddress((1 + random.nextInt(999)) + " Main St");
+        ride.setDestinationAddress((1 + random.nextInt(999)) + " Market St");
+        ride.setOriginLocation(near(from));
+        ride.setDestinationLocation(near(to));
+        ride.setDepartureTime(now.plusHours(1).plusMinutes(random.nextInt(30 * 24 * 60)));
+        ride.setEstimatedArrivalTime(ride.getDepartureTime().plusHours(2 + random.nextInt(10)));
+        ride.setTotalSeats(3 + random.nextInt(5));
+        ride.setAvailableSeats(ride.getTotalSeats());
+        ride.setFarePerSeat(10 + random.nextInt(90));
+        ride.setIntermediateStops(List.of());
+        ride.setLuggagePreference(random.nextBoolean() ? "SMALL" : "MEDIUM");
+        ride.setSmokingAllowed(random.nextInt(10) == 0);
+        ride.setPetsAllowed(random.nextInt(4) == 0);
+        ride.setStatus(RideStatus.SCHEDULED);
+        ride.setCreatedAt(now);
+        ride.setUpdatedAt(now);
+        ride.setRouteSegments(RouteKeys.segmentKeys(ride, locationNormalizer));
+        ride.setRouteKeysVersion(locationNormalizer.getDictionaryVersion());
+        return ride;
+    }
+
+    // One active booking per (ride, passenger), seats taken from the ride: 60% confirmed, 30% requested, 10% cancelled
+    private List<Booking> bookings(List<SeedRide> sample, List<Ride> sampleRides, List<User> passengers, int count, LocalDateTime now) {
+        List<Booking> bookings = new ArrayList<>(count);
+        Set<String> taken = new HashSet<>();
+        int attempts = 0;
+        while (bookings.size() < count && attempts++ < count * 3 && !sample.isEmpty()) {
+            int index = random.nextInt(sample.size());
+            Ride ride = sampleRides.get(index);
+            User passenger = passengers.get(random.nextInt(passengers.size()));
+            if (ride.getAvailableSeats() < 1 || !taken.add(ride.getId() + '/' + passenger.getId())) {
+                continue;
+            }
+            int roll = random.nextInt(10);
+            BookingStatus status = roll < 6 ? BookingStatus.CONFIRMED : roll < 9 ? BookingStatus.REQUESTED : BookingStatus.CANCELLED_BY_PASSENGER;
+            Booking booking = new Booking();
+            booking.setId(new ObjectId().toHexString());
+            booking.setRideId(ride.getId());
+            booking.setPassengerId(passenger.getId());
+            booking.setDriverId(ride.getDriverId());
+            booking.setRequestedSeats(1);
+            booking.setStatus(status);
+            booking.setCreatedAt(now.minusMinutes(random.nextInt(7 * 24 * 60)));
+            booking.setUpdatedAt(booking.getCreatedAt());
+            if (status == BookingStatus.CONFIRMED) {
+                booking.setConfirmationTime(booking.getCreatedAt().plusMinutes(10));
+                ride.setAvailableSeats(ride.getAvailableSeats() - 1);
+            } else if (status == BookingStatus.CANCELLED_BY_PASSENGER) {
+                booking.setCancellationTime(booking.getCreatedAt().plusHours(1));
+            }
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    // Seats were taken after the rides were inserted
+    private void fixSeatsOfInsertedRides(List<Ride> sampleRides) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+        int pending = 0;
+        for (Ride ride : sampleRides) {
+            if (ride.getAvailableSeats() == ride.getTotalSeats()) {
+                continue;
+            }
+            bulk.updateOne(Query.query(Criteria.where("id").is(ride.getId())), Update.update("availableSeats", ride.getAvailableSeats()));
+            pending++;
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+    }
+
+    private GeoJsonPoint near(City city) {
+        double latitude = city.latitude() + (random.nextDouble() * 2 - 1) * JITTER_DEGREES;
+        double longitude = city.longitude() + (random.nextDouble() * 2 - 1) * JITTER_DEGREES;
+        return new GeoJsonPoint(longitude, latitude); // GeoJSON order: [lng, lat]
+    }
+
+    private static City city(String name) {
+        return CITIES.stream().filter(c -> c.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static void log(String what, int count, long startNanos) {
+        System.out.printf("Seeded %,d %s (%,d ms elapsed)%n", count, what, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
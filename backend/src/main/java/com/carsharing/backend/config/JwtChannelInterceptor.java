@@ -0,0 +1,111 @@
+package com.carsharing.backend.config;
+
+import com.carsharing.backend.model.User;
+import com.carsharing.backend.repository.UserRepository;
+import com.carsharing.backend.util.StompDestinations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authenticates STOMP sessions once, on CONNECT.
+ *
+ * The token is read from the CONNECT frame's "Authorization: Bearer ..." header (SockJS clients can't set
+ * handshake headers), falling back to the user already authenticated on the HTTP handshake. The user is
+ * loaded once and attached as a {@link StompPrincipal}; Spring then associates it with every later frame
+ * of the session. A CONNECT without a valid token is rejected with an ERROR frame.
+ *
+ * Clients may only SEND to application destinations (/app/...), which go through the @MessageMapping checks
+ * (membership, rate limit). A SEND to anything else, e.g. straight to a /topic/ride.{id}.chat the broker relay
+ * would otherwise forward, is dropped and reported to the sender on /user/queue/errors.
+ */
+@Component
+public class JwtChannelInterceptor implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtChannelInterceptor.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // @Lazy: the messaging template is built by the same WebSocket configuration that registers this interceptor
+    public JwtChannelInterceptor(JwtUtil jwtUtil, UserRepository userRepository, @Lazy SimpMessagingTemplate messagingTemplate) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && accessor.getCommand() == StompCommand.SEND) {
+            return checkSendDestination(message, accessor);
+        }
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message; // Only CONNECT is authenticated; later frames carry the session's principal
+        }
+
+        String email = emailFromToken(accessor.getFirstNativeHeader("Authorization"));
+        if (email == null) {
+            Principal handshakeUser = accessor.getUser();
+            email = handshakeUser != null ? handshakeUser.getName() : null;
+        }
+        if (email == null) {
+            log.warn("Rejected STOMP CONNECT for session {}: missing or invalid token.", accessor.getSessionId());
+            throw new MessageDeliveryException("Missing or invalid authentication token.");
+        }
+
+        String userEmail = email;
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> {
+                    log.warn("Rejected STOMP CONNECT for session {}: user {} not found.", accessor.getSessionId(), userEmail);
+                    return new MessageDeliveryException("User not found.");
+                });
+        List<String> roles = user.getRoles() != null ? List.copyOf(user.getRoles()) : List.of();
+        accessor.setUser(new StompPrincipal(user.getId(), user.getEmail(), user.getName(), roles));
+        log.debug("STOMP session {} authenticated as {} ({}).", accessor.getSessionId(), user.getEmail(), user.getId());
+        return message;
+    }
+
+    private Message<?> checkSendDestination(Message<?> message, StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination != null && destination.startsWith(StompDestinations.APPLICATION_PREFIX + "/")) {
+            return message;
+        }
+        Principal user = accessor.getUser();
+        log.warn("Rejected STOMP SEND to {} from {} (session {}): clients may only send to {}/...",
+                destination, user != null ? user.getName() : "anonymous", accessor.getSessionId(),
+                StompDestinations.APPLICATION_PREFIX);
+        if (user != null) {
+            messagingTemplate.convertAndSendToUser(user.getName(), "/queue/errors", Map.of(
+                    "type", "SEND_NOT_ALLOWED",
+                    "destination", String.valueOf(destination),
+                    "message", "Messages can only be sent to " + StompDestinations.APPLICATION_PREFIX + "/ destinations."
+            ));
+        }
+        return null; // Not forwarded to the broker or any @MessageMapping
+    }
+
+    private String emailFromToken(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        String token = authorizationHeader.substring(BEARER_PREFIX.length());
+        return jwtUtil.validateToken(token) ? jwtUtil.extractEmail(token) : null;
+    }
+}
@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -36,6 +38,9 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry; // auth.jwt.filter timer: token check + user lookup, tagged by result
+
     // Define the paths that should bypass JWT validation
     private static final List<String> PUBLIC_PATHS = Arrays.asList(
             "/api/v1/auth/login",
@@ -62,7 +67,9 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Token Extraction and Validation
+        // Token Extraction and Validation (timed up to the chain call, so downstream handling isn't counted)
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "no_token";
         final String authHeader = request.getHeader("Authorization");
         String token = null;
         String email = null;
@@ -73,9 +80,11 @@ public class JwtFilter extends OncePerRequestFilter {
                 if (jwtUtil.validateToken(token)) {
                     email = jwtUtil.extractEmail(token);
                 } else {
+                    result = "invalid_token";
                     log.warn("JWT Token validation failed for token: {}", token);
                 }
             } catch (Exception e) {
+                 result = "invalid_token";
                  log.error("Error validating JWT token: {}", e.getMessage());
             }
         } else {
@@ -106,10 +115,18 @@ public class JwtFilter extends OncePerRequestFilter {
                 );
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                result = "authenticated";
             } else {
+                 result = "unknown_user";
                  log.warn("User not found in repository for email extracted from JWT: {}", email);
             }
+        } else if (email != null) {
+            result = "already_authenticated";
         }
+        sample.stop(Timer.builder("auth.jwt.filter")
+                .description("JWT filter time (token validation and user lookup), excluding the rest of the request")
+                .tag("result", result)
+                .register(meterRegistry));
 
         // Continue the filter chain
         chain.doFilter(request, response);
@@ -0,0 +1,24 @@
+package com.carsharing.backend.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics wiring. Timers on hot paths are declared with @Timed on the method (RideService.searchRides,
+ * BookingService.requestBooking/confirmBooking, ChatController.sendMessage, FileStorageService.storeFile);
+ * the aspect records them, tagged with the exception class when the call fails.
+ *
+ * Also auto-configured by Spring Boot: http.server.requests, mongodb.driver.commands (a MongoDB CommandListener,
+ * tagged by command and collection), mongodb.driver.pool.*, JVM and process metrics.
+ * Everything is scraped from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,35 @@
+package com.carsharing.backend.config;
+
+import com.carsharing.backend.service.SlowQueryMonitor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+
+@Configuration
+@EnableMongoAuditing // Populates @CreatedDate / @LastModifiedDate on Ride, Booking, etc.
+public class MongoConfig {
+
+    /**
+     * Makes the services' @Transactional methods real MongoDB transactions, so a state change and the outbox
+     * event it writes commit together. On by default: it needs a replica set (or sharded cluster), which Atlas
+     * always is. Set mongodb.transactions.enabled=false only for a standalone mongod, which rejects transactions;
+     * the outbox event is then written right after the state change and is lost if the node dies in between.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mongodb.transactions.enabled", havingValue = "true", matchIfMissing = true)
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+
+    /**
+     * Registers the slow-command log (see SlowQueryMonitor) on the application's MongoClient.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQueryCustomizer(SlowQueryMonitor slowQueryMonitor) {
+        return settings -> settings.addCommandListener(slowQueryMonitor);
+    }
+}
@@ -0,0 +1,9 @@
+package com.carsharing.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling // Enables @Scheduled background jobs (e.g. RideSearchIndex consistency check)
+public class SchedulingConfig {
+}
@@ -1,8 +1,17 @@
 package com.carsharing.backend.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.http.HttpMethod; // Ensure this is imported
 import org.springframework.security.config.Customizer; // Import for withDefaults
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -32,9 +41,50 @@ import java.util.Arrays; // Import Arrays
 @EnableMethodSecurity // Keep this
 public class SecurityConfig {
 
+    private static final String METRICS_SCRAPER_ROLE = "METRICS_SCRAPER";
+
     @Autowired
     private JwtFilter jwtFilter;
 
+    /**
+     * Actuator endpoints, checked before the API chain. Health is public (load balancer probes); metrics and
+     * prometheus expose request URIs, collections and queue sizes, so they need the ADMIN role (JWT) or HTTP Basic
+     * with the dedicated scrape account (metrics.scrape.username/password), which Prometheus can use without a
+     * user's expiring login token. With metrics.scrape.password empty only admins can read them.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http,
+                                                   PasswordEncoder passwordEncoder,
+                                                   @Value("${metrics.scrape.username:prometheus}") String scrapeUsername,
+                                                   @Value("${metrics.scrape.password:}") String scrapePassword) throws Exception {
+        http
+            .securityMatcher(EndpointRequest.toAnyEndpoint())
+            .csrf(csrf -> csrf.disable())
+            .authorizeHttpRequests(authz -> authz
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                .anyRequest().hasAnyRole("ADMIN", METRICS_SCRAPER_ROLE)
+            )
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        if (!scrapePassword.isBlank()) {
+            http.httpBasic(Customizer.withDefaults())
+                .authenticationManager(scrapeAuthenticationManager(passwordEncoder, scrapeUsername, scrapePassword));
+        }
+        http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+        return http.build();
+    }
+
+    // Only the scrape account; application users sign in with JWTs, never with Basic credentials
+    private static AuthenticationManager scrapeAuthenticationManager(PasswordEncoder passwordEncoder, String username, String password) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername(username)
+                .password(passwordEncoder.encode(password))
+                .roles(METRICS_SCRAPER_ROLE)
+                .build()));
+        return new ProviderManager(provider);
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
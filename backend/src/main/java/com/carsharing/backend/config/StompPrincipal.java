@@ -0,0 +1,23 @@
+package com.carsharing.backend.config;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Principal attached to a STOMP session by {@link JwtChannelInterceptor} on CONNECT.
+ * Spring keeps it for the whole session, so message handlers get the user's ID, name and roles
+ * without querying MongoDB.
+ *
+ * getName() is the email, which is what user destinations (convertAndSendToUser) are addressed by.
+ */
+public record StompPrincipal(String userId, String email, String displayName, List<String> roles) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean hasRole(String role) {
+        return roles != null && roles.stream().anyMatch(role::equalsIgnoreCase);
+    }
+}
@@ -0,0 +1,67 @@
+package com.carsharing.backend.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.ReceiverContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Traces @MessageMapping handlers (client inbound channel).
+ *
+ * Each SEND frame handled by a controller gets a span, continuing the trace whose context the client sent
+ * in the frame's headers (W3C "traceparent"), or starting a new one. The span is opened on the inbound
+ * executor thread right before the handler runs, so the Mongo commands and messages it sends are its children.
+ */
+@Component
+public class StompTracingInterceptor implements ExecutorChannelInterceptor {
+
+    private final ObservationRegistry observationRegistry;
+
+    // Handler threads process one message at a time; beforeHandle and afterMessageHandled run on the same thread
+    private final ThreadLocal<Observation.Scope> currentScope = new ThreadLocal<>();
+
+    public StompTracingInterceptor(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        // The inbound channel also feeds the broker and user-destination handlers; only trace controller calls
+        if (!(handler instanceof SimpAnnotationMethodMessageHandler)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        ReceiverContext<Message<?>> context = new ReceiverContext<>(
+                (carrier, key) -> SimpMessageHeaderAccessor.wrap(carrier).getFirstNativeHeader(key));
+        context.setCarrier(message);
+        Observation observation = Observation.createNotStarted("stomp.message.handle", () -> context, observationRegistry)
+                .contextualName("STOMP SEND")
+                .lowCardinalityKeyValue("stomp.command", "SEND")
+                .highCardinalityKeyValue("stomp.destination", String.valueOf(SimpMessageHeaderAccessor.getDestination(message.getHeaders())))
+                .start();
+        currentScope.set(observation.openScope());
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Observation.Scope scope = currentScope.get();
+        if (scope == null) {
+            return;
+        }
+        currentScope.remove();
+        Observation observation = scope.getCurrentObservation();
+        scope.close();
+        if (ex != null) {
+            observation.error(ex);
+        }
+        observation.stop();
+    }
+}
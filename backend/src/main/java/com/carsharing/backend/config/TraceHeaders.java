@@ -0,0 +1,67 @@
+package com.carsharing.backend.config;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carries the current trace context in headers.
+ *
+ * - As a broker channel interceptor, it adds the trace context (W3C "traceparent") to every message the
+ *   application sends to the broker (notifications, chat broadcasts, user queues), so STOMP MESSAGE frames
+ *   reaching clients, and the external broker when relaying, are tied to the span that sent them.
+ * - current() returns the same headers as a map, for work that continues later (outbox events).
+ *
+ * Without tracing (management.tracing.enabled=false) there is never a current span and nothing is added.
+ */
+@Component
+public class TraceHeaders implements ChannelInterceptor {
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public TraceHeaders(ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    /**
+     * Trace context of the current span as headers (empty outside a trace).
+     */
+    public Map<String, String> current() {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return Map.of();
+        }
+        Map<String, String> headers = new HashMap<>();
+        propagator.inject(span.context(), headers, Map::put);
+        return headers;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        Span span = tracer.currentSpan();
+        if (span == null || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        List<String> fields = propagator.fields();
+        if (!fields.isEmpty() && accessor.getFirstNativeHeader(fields.get(0)) != null) {
+            return message; // Already stamped (user destinations pass through here twice)
+        }
+        propagator.inject(span.context(), accessor, SimpMessageHeaderAccessor::setNativeHeader);
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,80 @@
+package com.carsharing.backend.config;
+
+import com.mongodb.RequestContext;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+/**
+ * Tracing wiring (Micrometer Tracing over OpenTelemetry).
+ *
+ * Spans, all in one trace per request:
+ * - HTTP requests: auto-configured by Spring Boot (server observation on every controller call).
+ * - MongoDB commands: one span per command (find, insert, update, ...), via the listener registered below.
+ * - STOMP: @MessageMapping handlers and outbound messages, see StompTracingInterceptor.
+ * - NotificationService sends, and outbox deliveries linked back to the request that wrote the event.
+ *
+ * Spans are exported over OTLP/HTTP to management.otlp.tracing.endpoint (a local collector), sampled at
+ * management.tracing.sampling.probability. tracing.logging-exporter.enabled also logs every finished span,
+ * handy for tests and local debugging without a collector.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Adds a span per MongoDB command. The context provider hands the caller's current observation to the
+     * driver, so the command span becomes a child of the HTTP/STOMP span that issued it.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTracingCustomizer(ObservationRegistry observationRegistry) {
+        CommandListener tracing = new MongoObservationCommandListener(observationRegistry);
+        return settings -> settings
+                .contextProvider(ContextProviderFactory.create(observationRegistry))
+                .addCommandListener(new WithinTraceCommandListener(tracing));
+    }
+
+    /**
+     * Logs finished spans (in addition to the OTLP export).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.logging-exporter.enabled", havingValue = "true")
+    public LoggingSpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+
+    /**
+     * Only traces commands issued inside a trace. Without a parent (the outbox relay's polling, scheduled jobs,
+     * the change stream) every command would start its own single-span trace, several times a second.
+     * Completion events need no check: the delegate ignores commands it didn't start.
+     */
+    private record WithinTraceCommandListener(CommandListener delegate) implements CommandListener {
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            RequestContext requestContext = event.getRequestContext();
+            if (requestContext != null && requestContext.hasKey(ObservationThreadLocalAccessor.KEY)) {
+                delegate.commandStarted(event);
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            delegate.commandSucceeded(event);
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+            delegate.commandFailed(event);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.carsharing.backend.config;
+
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Re-runs a @Transactional service method whose MongoDB transaction was aborted by a conflicting one.
+ *
+ * MongoDB transactions don't wait on each other: when two of them write the same document (two bookings of one
+ * ride update the ride and its outbox_sequences counter), the later write fails with WriteConflict and the driver
+ * labels the error TransientTransactionError. The whole transaction has been rolled back by then, so it is safe to
+ * run the method again, up to mongodb.transactions.max-attempts times with a short randomized pause.
+ *
+ * Ordered before the transaction interceptor, so each attempt gets a fresh transaction; calls that join an outer
+ * transaction aren't retried on their own (the outermost method is). Side effects that must not repeat belong in
+ * the outbox or AfterCommit, which a rolled-back attempt discards.
+ *
+ * Metrics: mongodb.transactions.retries, mongodb.transactions.retries.exhausted.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TransactionRetryAspect {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionRetryAspect.class);
+
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    public TransactionRetryAspect(MeterRegistry meterRegistry,
+                                  @Value("${mongodb.transactions.max-attempts:5}") int maxAttempts,
+                                  @Value("${mongodb.transactions.retry-backoff-ms:10}") long backoffMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = Math.max(1, backoffMs);
+        this.retries = Counter.builder("mongodb.transactions.retries")
+                .description("Transactions re-run after a TransientTransactionError").register(meterRegistry);
+        this.exhausted = Counter.builder("mongodb.transactions.retries.exhausted")
+                .description("Transactions that still conflicted after mongodb.transactions.max-attempts").register(meterRegistry);
+    }
+
+    @Around("@annotation(org.springframework.transaction.annotation.Transactional) "
+            + "|| @within(org.springframework.transaction.annotation.Transactional)")
+    public Object retryTransient(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed(); // Joins the caller's transaction; the caller's attempt is the one to repeat
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("{} still conflicted after {} attempts: {}", joinPoint.getSignature().toShortString(), attempt, e.getMessage());
+                    throw e;
+                }
+                retries.increment();
+                log.debug("{} conflicted with another transaction (attempt {}), retrying: {}",
+                        joinPoint.getSignature().toShortString(), attempt, e.getMessage());
+                // Randomized and growing, so the conflicting requests don't collide again in lockstep
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs * attempt, backoffMs * attempt * 2 + 1));
+            }
+        }
+    }
+
+    // Spring wraps driver exceptions (UncategorizedMongoDbException, TransactionSystemException on commit, ...);
+    // the label is on the MongoException underneath
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -1,15 +1,113 @@
 package com.carsharing.backend.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker // Enables WebSocket message handling, backed by a message broker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    // Optional external STOMP broker (RabbitMQ with rabbitmq_stomp, ActiveMQ, Artemis...).
+    // Required to run more than one backend node: with the in-memory broker, a message only reaches
+    // clients connected to the JVM that sent it.
+    @Value("${websocket.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${websocket.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${websocket.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${websocket.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    // --- Transport tuning (defaults sized for ~20k mostly idle sessions) ---
+
+    // Inbound: frames from clients (SEND/SUBSCRIBE/...). Outbound: frames written to clients.
+    // Spring's defaults are an unbounded queue and max pool size, which lets a burst grow memory without limit.
+    @Value("${websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.outbound.queue-capacity:50000}")
+    private int outboundQueueCapacity;
+
+    // A session that can't take data within the time limit, or buffers more than the size limit, is closed
+    // instead of holding memory for a slow consumer
+    @Value("${websocket.transport.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.transport.send-buffer-size-limit:131072}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // STOMP heartbeats for the in-memory broker: [server sends every, server expects from client every]
+    @Value("${websocket.heartbeat.server-ms:10000}")
+    private long heartbeatServerMs;
+
+    @Value("${websocket.heartbeat.client-ms:10000}")
+    private long heartbeatClientMs;
+
+    @Autowired
+    private WebSocketMetrics webSocketMetrics;
+
+    @Autowired
+    private JwtChannelInterceptor jwtChannelInterceptor;
+
+    @Autowired
+    private StompTracingInterceptor stompTracingInterceptor;
+
+    @Autowired
+    private TraceHeaders traceHeaders;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // Spring's own broker scheduler; @Lazy because it is created by the same configuration that calls us
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // This is the HTTP URL that clients will connect to initially for the WebSocket handshake.
@@ -27,14 +125,67 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // in your controllers (if you were building full chat, etc.). We might not use this much initially.
         registry.setApplicationDestinationPrefixes("/app"); // e.g., client sends to /app/chat
 
-        // Defines prefixes for destinations that the message broker handles directly (broadcasting).
-        // enableSimpleBroker enables an in-memory broker.
-        // '/topic' is typically used for broadcast messages (one-to-many).
-        // '/user' is used for user-specific messages (one-to-one). Spring maps /user/{userId}/... destinations.
-        registry.enableSimpleBroker("/topic", "/user");
+        if (relayEnabled) {
+            // Relay broker destinations to the external broker over TCP. '/topic' carries the ride status/chat
+            // broadcasts; '/queue' carries user destinations once Spring has resolved /user/{name}/queue/... to a
+            // per-session queue.
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode)
+                    .setVirtualHost(relayVirtualHost.isBlank() ? null : relayVirtualHost)
+                    // Share which users are connected to which node, so convertAndSendToUser() reaches
+                    // a user whose session lives on another instance.
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            log.info("STOMP broker relay enabled: {}:{}", relayHost, relayPort);
+        } else {
+            // Defines prefixes for destinations that the message broker handles directly (broadcasting).
+            // enableSimpleBroker enables an in-memory broker.
+            // '/topic' is typically used for broadcast messages (one-to-many).
+            // '/user' is used for user-specific messages (one-to-one). Spring maps /user/{userId}/... destinations.
+            // '/queue' is where those land once resolved (e.g. /user/queue/errors -> /queue/errors-user{sessionId}).
+            registry.enableSimpleBroker("/topic", "/queue", "/user")
+                    // Detects dead connections (and keeps proxies from idling them out) without app traffic
+                    .setHeartbeatValue(new long[] {heartbeatServerMs, heartbeatClientMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
 
         // Configures the prefix used for user-specific destinations.
         // When you send to /user/{userId}/queue/something, Spring ensures only that user receives it.
         registry.setUserDestinationPrefix("/user");
+
+        // Messages sent by the application carry the sender's trace context as a STOMP header
+        registry.configureBrokerChannel().interceptors(traceHeaders);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        registration.interceptors(jwtChannelInterceptor, // Verifies the JWT once per session, on CONNECT; SEND only to /app
+                stompTracingInterceptor); // A span around each @MessageMapping call
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(webSocketMetrics); // Per-session outbound backlog metrics
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(webSocketMetrics::decorate); // Session count and slow-consumer disconnects
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package com.carsharing.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backpressure metrics for STOMP sessions. Registered as an interceptor on the client outbound channel,
+ * it tracks how many messages each session has queued but not yet written. It also wraps the WebSocket
+ * handler to count sessions and slow-consumer disconnects.
+ *
+ * Per-session numbers are aggregated rather than tagged by session, to keep metric cardinality flat at 20k
+ * connections: websocket.sessions.active, websocket.outbound.pending{stat=max|sessions}, websocket.outbound.backlog
+ * (per-session queue depth seen at enqueue), websocket.outbound.send (time to hand a message to the session)
+ * and websocket.sessions.closed.slow (closed for exceeding the send time/buffer limits).
+ */
+@Component
+public class WebSocketMetrics implements ExecutorChannelInterceptor {
+
+    private final ConcurrentMap<String, AtomicInteger> pendingBySession = new ConcurrentHashMap<>();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final ThreadLocal<Long> handleStart = new ThreadLocal<>();
+
+    private final DistributionSummary backlog;
+    private final Timer sendTimer;
+    private final Counter slowConsumerCloses;
+
+    public WebSocketMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("websocket.sessions.active", activeSessions, AtomicInteger::get)
+                .description("Open WebSocket sessions").register(meterRegistry);
+        Gauge.builder("websocket.outbound.pending", this, WebSocketMetrics::maxPending).tag("stat", "max")
+                .description("Largest number of outbound messages queued for a single session").register(meterRegistry);
+        Gauge.builder("websocket.outbound.pending", this, WebSocketMetrics::backloggedSessions).tag("stat", "sessions")
+                .description("Sessions with at least one outbound message waiting").register(meterRegistry);
+        this.backlog = DistributionSummary.builder("websocket.outbound.backlog")
+                .description("Per-session outbound queue depth when a message is enqueued")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("websocket.outbound.send")
+                .description("Time to hand an outbound message to its session (includes waiting on a slow socket)")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.slowConsumerCloses = Counter.builder("websocket.sessions.closed.slow")
+                .description("Sessions closed because they exceeded the send time or buffer size limit")
+                .register(meterRegistry);
+    }
+
+    // --- Outbound channel interceptor ---
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            AtomicInteger pending = pendingBySession.compute(sessionId, (id, current) -> {
+                AtomicInteger counter = current != null ? current : new AtomicInteger();
+                counter.incrementAndGet();
+                return counter;
+            });
+            backlog.record(pending.get());
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, @Nullable Exception ex) {
+        if (!sent || ex != null) {
+            decrementPending(message); // Rejected by the executor, so it will never be handled
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        handleStart.set(System.nanoTime());
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, @Nullable Exception ex) {
+        Long start = handleStart.get();
+        if (start != null) {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            handleStart.remove();
+        }
+        decrementPending(message);
+    }
+
+    private void decrementPending(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            // Drop the entry once drained, so sessions don't linger after they close
+            pendingBySession.computeIfPresent(sessionId, (id, pending) -> pending.decrementAndGet() <= 0 ? null : pending);
+        }
+    }
+
+    // --- Session lifecycle ---
+
+    /**
+     * Wraps the STOMP WebSocket handler to track open sessions and slow-consumer disconnects.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                activeSessions.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                activeSessions.decrementAndGet();
+                pendingBySession.remove(session.getId());
+                // Spring closes sessions that exceed the send time/buffer limit with SESSION_NOT_RELIABLE
+                if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                    slowConsumerCloses.increment();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private double maxPending() {
+        int max = 0;
+        for (AtomicInteger pending : pendingBySession.values()) {
+            max = Math.max(max, pending.get());
+        }
+        return max;
+    }
+
+    private double backloggedSessions() {
+        return pendingBySession.size(); // Only sessions with something pending have an entry
+    }
+}
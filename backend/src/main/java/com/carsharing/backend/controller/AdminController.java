@@ -1,18 +1,30 @@
 package com.carsharing.backend.controller;
 
+import com.carsharing.backend.dto.ChatSearchResultDTO;
+import com.carsharing.backend.dto.IndexUsageDTO;
+import com.carsharing.backend.dto.SlowQueryDTO;
 import com.carsharing.backend.exception.ActionNotAllowedException;
 import com.carsharing.backend.exception.ResourceNotFoundException;
 import com.carsharing.backend.model.User;
+import com.carsharing.backend.repository.UserRepository;
+import com.carsharing.backend.service.ChatSearchService;
+import com.carsharing.backend.service.DriverEligibilityService;
+import com.carsharing.backend.service.IndexRegistry;
+import com.carsharing.backend.service.SlowQueryMonitor;
 import com.carsharing.backend.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -26,6 +38,18 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ChatSearchService chatSearchService;
+
+    @Autowired
+    private SlowQueryMonitor slowQueryMonitor;
+
+    @Autowired
+    private IndexRegistry indexRegistry;
+
+    @Autowired
+    private DriverEligibilityService driverEligibilityService;
+
     
     /**
      * Endpoint to list users pending driver approval.
@@ -35,10 +59,17 @@ public class AdminController {
     public ResponseEntity<List<PassengerController.UserProfileDTO>> getPendingDriverApplications() {
         // Using inner DTO from PassengerController for now
         try {
-            List<User> pendingUsers = userService.listPendingDriverApplications();
+            List<UserRepository.UserProfileView> pendingUsers = userService.listPendingDriverApplications();
+            // Cached per user; misses for the whole list are answered by one aggregation
+            Map<String, Boolean> documentsApproved = driverEligibilityService.hasAllRequiredDocumentsApproved(
+                    pendingUsers.stream().map(UserRepository.UserProfileView::getId).toList());
              List<PassengerController.UserProfileDTO> pendingProfiles = pendingUsers.stream()
-                 .map(user -> new PassengerController.UserProfileDTO(
-                         user.getId(), user.getName(), user.getEmail(), user.getRoles(), user.getDriverStatus()))
+                 .map(user -> {
+                     PassengerController.UserProfileDTO profile = new PassengerController.UserProfileDTO(
+                             user.getId(), user.getName(), user.getEmail(), user.getRoles(), user.getDriverStatus());
+                     profile.requiredDocumentsApproved = documentsApproved.getOrDefault(user.getId(), false);
+                     return profile;
+                 })
                  .collect(Collectors.toList());
 
             if (pendingProfiles.isEmpty()) {
@@ -103,6 +134,84 @@ public class AdminController {
         }
     }
 
+    /**
+     * Full-text search over chat messages for moderation, best matches first.
+     * Example: GET /api/admin/chat/search?q=refund&rideId=...&from=2024-05-01T00:00:00&page=0&size=20
+     *
+     * @param q        Search text (words, "exact phrase", -excluded word). Required.
+     * @param rideId   Only messages of this ride (optional).
+     * @param senderId Only messages from this user ID (optional).
+     * @param from     Only messages sent at or after this time, ISO date-time (optional).
+     * @param to       Only messages sent at or before this time, ISO date-time (optional).
+     * @param page     Zero-based page index.
+     * @param size     Page size (capped at ChatSearchService.MAX_PAGE_SIZE).
+     * @return A page of matching messages, or 400 if q is blank or from is after to.
+     */
+    @GetMapping("/chat/search")
+    public ResponseEntity<?> searchChat(
+            @RequestParam String q,
+            @RequestParam(required = false) String rideId,
+            @RequestParam(required = false) String senderId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Page<ChatSearchResultDTO> results = chatSearchService.search(q, rideId, senderId, from, to, page, size);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            log.warn("Chat search rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error searching chat messages for '{}': {}", q, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to search chat messages.");
+        }
+    }
+
+    /**
+     * Endpoint listing the slowest MongoDB command shapes seen since startup (or the last reset),
+     * with execution counts and a summary of their query plan (collection scans flagged).
+     * @param limit Maximum number of entries.
+     * @param sort  "total" (cumulative time, default), "count" or "max".
+     * @return The offenders, worst first, or 400 for an unknown sort.
+     */
+    @GetMapping("/slow-queries")
+    public ResponseEntity<?> getSlowQueries(@RequestParam(defaultValue = "20") int limit,
+                                            @RequestParam(defaultValue = "total") String sort) {
+        try {
+            List<SlowQueryDTO> offenders = slowQueryMonitor.topOffenders(limit, sort);
+            return ResponseEntity.ok(offenders);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to clear the slow query log (e.g. after adding an index).
+     */
+    @DeleteMapping("/slow-queries")
+    public ResponseEntity<Void> resetSlowQueries() {
+        slowQueryMonitor.reset();
+        log.info("Slow query log cleared.");
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint listing index usage ($indexStats) for every collection.
+     * @param unusedOnly Only indexes without reads for mongodb.indexes.unused-min-age-hours (unique/TTL indexes excluded).
+     * @return Indexes with their operation counts and whether IndexRegistry declares them.
+     */
+    @GetMapping("/indexes")
+    public ResponseEntity<?> getIndexUsage(@RequestParam(defaultValue = "false") boolean unusedOnly) {
+        try {
+            List<IndexUsageDTO> usage = indexRegistry.indexUsage(unusedOnly);
+            return ResponseEntity.ok(usage);
+        } catch (Exception e) {
+            log.error("Error collecting index usage: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to collect index usage.");
+        }
+    }
+
      // Add other admin endpoints from UserController later if desired
      // e.g., GET /users, DELETE /users/{id} could be moved here
 
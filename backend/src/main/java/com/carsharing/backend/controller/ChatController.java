@@ -1,5 +1,6 @@
 package com.carsharing.backend.controller;
 
+import com.carsharing.backend.config.StompPrincipal;
 import com.carsharing.backend.dto.ChatMessageDTO;
 import com.carsharing.backend.exception.ResourceNotFoundException;
 import com.carsharing.backend.model.BookingStatus;
@@ -10,7 +11,12 @@ import com.carsharing.backend.repository.BookingRepository;
 import com.carsharing.backend.repository.ChatMessageRepository;
 import com.carsharing.backend.repository.RideRepository;
 import com.carsharing.backend.repository.UserRepository;
+import com.carsharing.backend.service.ChatArchiveService;
+import com.carsharing.backend.service.ChatPersistenceService;
+import com.carsharing.backend.service.ChatRateLimiter;
+import com.carsharing.backend.util.StompDestinations;
 
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,8 +38,11 @@ import org.springframework.web.bind.annotation.RestController; // USE RestContro
 import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.ArrayList; // Import ArrayList
+import java.util.Comparator;
 import java.util.List; // Import List
+import java.util.Map;
 import java.util.Set;
+import java.util.HashSet;
 import java.util.stream.Collectors; // Import Collectors
 
 @RestController // Use @RestController to handle both @MessageMapping and @GetMapping
@@ -48,6 +57,9 @@ public class ChatController {
     @Autowired private RideRepository rideRepository;
     @Autowired private BookingRepository bookingRepository;
     @Autowired private UserRepository userRepository;
+    @Autowired private ChatPersistenceService chatPersistenceService;
+    @Autowired private ChatRateLimiter chatRateLimiter;
+    @Autowired private ChatArchiveService chatArchiveService;
 
     /**
      * Handles incoming WebSocket messages sent to destinations like "/app/ride/{rideId}/chat.sendMessage".
@@ -55,47 +67,65 @@ public class ChatController {
      *
      * @param incomingMessage DTO containing the message content (potentially other fields if needed).
      * @param rideId          The ID of the ride extracted from the destination path.
-     * @param principal       Represents the authenticated sender of the WebSocket message.
+     * @param principal       The sender, attached on CONNECT by JwtChannelInterceptor (carries ID, name and roles).
      */
     @MessageMapping("/ride/{rideId}/chat.sendMessage") // Listens for messages sent to /app/ride/{rideId}/chat.sendMessage
+    @Timed(value = "chat.send", description = "Handling one inbound chat message (checks, persist, broadcast)", histogram = true)
     public void sendMessage(@Payload ChatMessageDTO incomingMessage,
                             @DestinationVariable String rideId,
                             Principal principal) { // Principal represents the authenticated sender
 
-        if (principal == null) {
+        if (!(principal instanceof StompPrincipal sender)) {
              log.error("Cannot send chat message without authenticated principal for ride {}", rideId);
              // Cannot easily send error back without more complex setup, so just return.
              return;
         }
-        String senderEmail = principal.getName(); // Get sender's email (assuming email is username)
+        String senderEmail = sender.getName();
+
+        // --- Rate Limit ---
+        // Checked before any lookup, so a flooding client costs us neither Mongo reads nor inserts
+        if (!chatRateLimiter.tryAcquire(sender.userId())) {
+            log.debug("Chat message from {} for ride {} throttled.", senderEmail, rideId);
+            messagingTemplate.convertAndSendToUser(senderEmail, "/queue/errors", Map.of(
+                    "type", "CHAT_RATE_LIMITED",
+                    "rideId", rideId,
+                    "message", "You are sending messages too quickly. Please wait a moment."
+            ));
+            return;
+        }
 
         // --- Security Check & Validation ---
-        User sender = userRepository.findByEmail(senderEmail)
-                .orElseThrow(() -> {
-                    // Should not happen if Principal exists, but handle defensively
-                    log.error("Authenticated principal {} not found in user repository.", senderEmail);
-                    return new ResourceNotFoundException("Sender not found: " + senderEmail);
-                });
+        // No user lookup needed: the principal was loaded once when the session connected
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found for chat: " + rideId));
 
         // Verify sender is part of this ride's chat (driver or confirmed passenger)
-        boolean isDriver = ride.getDriverId().equals(sender.getId());
+        boolean isDriver = ride.getDriverId().equals(sender.userId());
      boolean isConfirmedPassenger = bookingRepository.existsByRideIdAndPassengerIdAndStatusIn(
-                                        rideId, sender.getId(), Set.of(BookingStatus.CONFIRMED));
+                                        rideId, sender.userId(), Set.of(BookingStatus.CONFIRMED));
 
         if (!isDriver && !isConfirmedPassenger) {
-            log.warn("Unauthorized chat message attempt by user {} ({}) for ride {}", senderEmail, sender.getId(), rideId);
+            log.warn("Unauthorized chat message attempt by user {} ({}) for ride {}", senderEmail, sender.userId(), rideId);
             // Optionally send error back to sender only? Requires more setup. For now, just don't process/broadcast.
             return;
         }
         // --- End Security Check ---
 
+        // The chat of an archived ride lives in chat_archives; a new message would be left behind in chat_messages
+        if (ride.getChatArchivedAt() != null) {
+            log.debug("Chat message from {} for archived ride {} refused.", senderEmail, rideId);
+            messagingTemplate.convertAndSendToUser(senderEmail, "/queue/errors", Map.of(
+                    "type", "CHAT_ARCHIVED",
+                    "rideId", rideId,
+                    "message", "This ride's chat has been archived and no longer accepts messages."
+            ));
+            return;
+        }
 
         // --- Process and Save Message ---
         ChatMessage chatMessage = new ChatMessage();
         chatMessage.setRideId(rideId);
-        chatMessage.setSenderId(sender.getId());
+        chatMessage.setSenderId(sender.userId());
         chatMessage.setSenderRole(isDriver ? "DRIVER" : "PASSENGER"); // Set role
         // Validate content if necessary (e.g., not empty)
         if(incomingMessage.getContent() == null || incomingMessage.getContent().trim().isEmpty()) {
@@ -105,7 +135,8 @@ public class ChatController {
         chatMessage.setContent(incomingMessage.getContent().trim()); // Get content from payload, trim whitespace
         chatMessage.setTimestamp(LocalDateTime.now()); // Set server timestamp
 
-        ChatMessage savedMessage = chatMessageRepository.save(chatMessage);
+        // Saved now, or queued for the write-behind batch (ID is assigned either way)
+        ChatMessage savedMessage = chatPersistenceService.persist(chatMessage);
 
         // --- Prepare Outgoing DTO ---
         // Reuse ChatMessageDTO or create a specific OutgoingChatMessageDTO if needed
@@ -113,13 +144,13 @@ public class ChatController {
             savedMessage.getContent(),
             savedMessage.getRideId(),
             savedMessage.getSenderId(),
-            sender.getName(), // Add sender name
+            sender.displayName(), // Add sender name
             savedMessage.getSenderRole(),
             savedMessage.getTimestamp()
         );
 
         // --- Broadcast Message to Ride Topic ---
-        String destination = "/topic/ride/" + rideId + "/chat"; // Topic for all participants of this ride
+        String destination = StompDestinations.rideChat(rideId); // Topic for all participants of this ride
         log.info("Sending chat message to {}: {}", destination, outgoingDto);
         messagingTemplate.convertAndSend(destination, outgoingDto);
     }
@@ -174,10 +205,23 @@ public class ChatController {
 
         // --- Fetch and Convert Messages ---
         try {
+            // With write-behind on, recent messages may still be buffered. Taken before the query: whatever
+            // leaves the buffer in between is in MongoDB by the time the query runs.
+            List<ChatMessage> unsaved = chatPersistenceService.unsavedMessages(rideId);
             // Fetch messages sorted by timestamp ascending
             List<ChatMessage> messages = chatMessageRepository.findByRideId(
                 rideId, Sort.by(Sort.Direction.ASC, "timestamp") // Use Sort object
             );
+            // Older rides have their chat (or part of it) in chat_archives. Merge both in, skipping any message
+            // that is in more than one place.
+            List<ChatMessage> extra = new ArrayList<>(chatArchiveService.archivedMessages(rideId));
+            extra.addAll(unsaved);
+            if (!extra.isEmpty()) {
+                messages = new ArrayList<>(messages);
+                Set<String> seenIds = messages.stream().map(ChatMessage::getId).collect(Collectors.toCollection(HashSet::new));
+                extra.stream().filter(msg -> seenIds.add(msg.getId())).forEach(messages::add);
+                messages.sort(Comparator.comparing(ChatMessage::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+            }
 
             // Convert entities to DTOs (including sender name)
             // Optimization Note: If chat history is long, fetching all user names individually can be slow.
@@ -3,6 +3,7 @@ package com.carsharing.backend.controller;
 import com.carsharing.backend.dto.BookingDTO;
 import com.carsharing.backend.dto.RideCreationDTO;
 import com.carsharing.backend.dto.RideDTO; // Assuming RideDTO is used as a return type by RideService
+import com.carsharing.backend.dto.RideSummaryDTO;
 import com.carsharing.backend.dto.RideUpdateDTO;
 import com.carsharing.backend.exception.BookingException;
 import com.carsharing.backend.exception.IllegalRideStateException;
@@ -18,6 +19,7 @@ import lombok.Data; // If you are using @Data for the class
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 // import org.springframework.security.access.AccessDeniedException; // Keep if used by existing methods
@@ -54,8 +56,8 @@ public class DriverController {
             String driverEmail = authentication.getName();
             log.info("Driver '{}' requesting their offered rides.", driverEmail);
 
-            // Assuming rideService.findRidesByDriverEmail returns List<RideDTO>
-            List<RideDTO> rides = rideService.findRidesByDriverEmail(driverEmail);
+            // List view: summaries only (GET /api/rides/{rideId} has the full details)
+            List<RideSummaryDTO> rides = rideService.findRidesByDriverEmail(driverEmail);
 
             if (rides.isEmpty()) {
                 log.info("No rides found for driver '{}'.", driverEmail);
@@ -169,24 +171,33 @@ public class DriverController {
 
     // --- Booking Management by Driver ---
 
-    // Implement GET /ride-requests using BookingService
-    // This endpoint would list booking requests for rides offered by the current driver.
-    // @GetMapping("/ride-requests")
-    // public ResponseEntity<?> viewRideRequests() {
-    //     try {
-    //         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-    //         String driverEmail = authentication.getName();
-    //         log.info("Driver '{}' fetching ride requests for their rides.", driverEmail);
-    //         List<BookingDTO> requests = bookingService.getPendingBookingsForDriver(driverEmail); // Assuming BookingService has this & returns DTOs
-    //         if (requests.isEmpty()) {
-    //             return ResponseEntity.noContent().build();
-    //         }
-    //         return ResponseEntity.ok(requests);
-    //     } catch (Exception e) {
-    //         log.error("Error fetching ride requests for driver: {}", e.getMessage(), e);
-    //         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to fetch ride requests.");
-    //     }
-    // }
+    /**
+     * Driver inbox: pending booking requests across all rides offered by the current driver.
+     * @param page Zero-based page index.
+     * @param size Page size (capped at BookingService.MAX_INBOX_PAGE_SIZE).
+     * @return A page of BookingDTOs (newest first), or 204 if there are no pending requests.
+     */
+    @GetMapping("/ride-requests")
+    public ResponseEntity<?> viewRideRequests(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String driverEmail = authentication.getName();
+            log.info("Driver '{}' fetching ride requests for their rides.", driverEmail);
+            Page<BookingDTO> requests = bookingService.getPendingBookingsForDriver(driverEmail, page, size);
+            if (requests.getTotalElements() == 0) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(requests);
+        } catch (ResourceNotFoundException e) {
+            log.warn("Fetch ride requests failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error fetching ride requests for driver: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to fetch ride requests.");
+        }
+    }
 
 
     @PostMapping("/bookings/{bookingId}/confirm")
@@ -1,5 +1,6 @@
 package com.carsharing.backend.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.carsharing.backend.exception.BookingException;
 import com.carsharing.backend.exception.ResourceNotFoundException;
 import com.carsharing.backend.service.BookingService;
@@ -71,6 +72,8 @@ public class PassengerController {
         public String email;
         public List<String> roles;
         public String driverStatus; // Added field
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Boolean requiredDocumentsApproved; // Only set in the admin's pending-driver queue
 
         public UserProfileDTO(String id, String name, String email, List<String> roles, String driverStatus) {
             this.id = id;
@@ -6,6 +6,7 @@ import com.carsharing.backend.exception.BookingException; // Import custom excep
 import com.carsharing.backend.exception.ResourceNotFoundException;
 // import com.carsharing.backend.model.Booking; // Import Booking model
 import com.carsharing.backend.service.BookingService; // Import BookingService
+import com.carsharing.backend.service.LocationAutocomplete;
 import com.carsharing.backend.service.RideService;    // Import RideService
 import org.slf4j.Logger;                      // Import Logger
 import org.slf4j.LoggerFactory;            // Import LoggerFactory
@@ -18,6 +19,7 @@ import org.springframework.security.core.Authentication; // Import Authenticatio
 import org.springframework.security.core.context.SecurityContextHolder; // Import SecurityContextHolder
 import org.springframework.web.bind.annotation.*;
 import com.carsharing.backend.dto.RideDTO; 
+import com.carsharing.backend.dto.LocationSuggestionDTO;
 
 import java.time.LocalDateTime;
 import java.util.List; // Import List
@@ -34,6 +36,9 @@ public class RideController {
     @Autowired // Inject BookingService
     private BookingService bookingService;
 
+    @Autowired // In-memory city/state suggestions for the search form
+    private LocationAutocomplete locationAutocomplete;
+
     @GetMapping("/{rideId}")
     public ResponseEntity<RideDTO> getRideById(@PathVariable String rideId) {
         try {
@@ -97,6 +102,73 @@ public class RideController {
         }
     }
 
+    /**
+     * Prefix autocomplete for the search form's city/state fields, ranked by how many rides use each place.
+     * Served entirely from memory, so the frontend can call it on every keystroke instead of running searches.
+     *
+     * @param prefix What the user has typed so far (case, accents and punctuation are ignored).
+     * @param type   "city" (default) or "state".
+     * @param limit  Max suggestions, 1-10.
+     * @return ResponseEntity with the suggestions (possibly empty), or 400 on invalid type/limit.
+     */
+    @GetMapping("/locations/suggest")
+    @PreAuthorize("hasAnyRole('PASSENGER', 'DRIVER')")
+    public ResponseEntity<?> suggestLocations(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "city") String type,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (limit < 1 || limit > LocationAutocomplete.MAX_SUGGESTIONS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("limit must be between 1 and " + LocationAutocomplete.MAX_SUGGESTIONS + ".");
+        }
+        List<LocationSuggestionDTO> suggestions;
+        if ("city".equalsIgnoreCase(type)) {
+            suggestions = locationAutocomplete.suggestCities(prefix, limit);
+        } else if ("state".equalsIgnoreCase(type)) {
+            suggestions = locationAutocomplete.suggestStates(prefix, limit);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("type must be 'city' or 'state'.");
+        }
+        return ResponseEntity.ok(suggestions);
+    }
+
+    /**
+     * Radius search: rides whose origin is within originRadiusKm of (originLat, originLng) and whose
+     * destination is within destinationRadiusKm of (destinationLat, destinationLng).
+     * Only rides created with coordinates can match.
+     *
+     * @return ResponseEntity containing matching rides ordered by distance from the origin, 204 if none, 400 on invalid input.
+     */
+    @GetMapping("/search/nearby")
+    @PreAuthorize("hasAnyRole('PASSENGER', 'DRIVER')")
+    public ResponseEntity<?> searchRidesNearby(
+            @RequestParam double originLat,
+            @RequestParam double originLng,
+            @RequestParam(defaultValue = "10") double originRadiusKm,
+            @RequestParam double destinationLat,
+            @RequestParam double destinationLng,
+            @RequestParam(defaultValue = "10") double destinationRadiusKm,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime earliestDepartureTime,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        try {
+            List<RideDTO> matchingRides = rideService.searchRidesNearby(originLat, originLng, originRadiusKm,
+                    destinationLat, destinationLng, destinationRadiusKm, earliestDepartureTime, limit);
+            if (matchingRides.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return ResponseEntity.ok(matchingRides);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid radius search request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error during radius ride search: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An unexpected error occurred while searching for rides.");
+        }
+    }
+
     /**
      * Allows a PASSENGER to request a booking for a specific ride.
      *
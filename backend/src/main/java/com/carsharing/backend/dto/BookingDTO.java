@@ -44,5 +44,7 @@ public class BookingDTO {
     private String departureState;
     private String destinationState;
     private String driverName; // Assuming your User model has a 'name' field
+    private String passengerName; // Shown in the driver's request inbox
+    private LocalDateTime departureTime; // Departure of the booked ride
     // Add any other fields you want to expose from Booking
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.carsharing.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSearchResultDTO {
+    private String messageId; // So a moderator can reference the exact message in a report
+    private String rideId;
+    private String senderId;
+    private String senderName;
+    private String senderRole;
+    private String content;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,16 @@
+package com.carsharing.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class IndexUsageDTO {
+    private String collection;
+    private String name;
+    private String keys;                  // Key pattern as JSON
+    private boolean declared;             // Declared in IndexRegistry (or the built-in _id_ index)
+    private long operations;              // Reads that used the index since countingSince ($indexStats)
+    private LocalDateTime countingSince;  // Server restart or index creation, whichever is later
+    private boolean unused;               // No operations for at least mongodb.indexes.unused-min-age-hours; unique/TTL excluded
+}
@@ -0,0 +1,14 @@
+package com.carsharing.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationSuggestionDTO {
+    private String city; // Null for state suggestions
+    private String state;
+    private long rideCount; // Rides departing from or arriving at this location (ranking key)
+}
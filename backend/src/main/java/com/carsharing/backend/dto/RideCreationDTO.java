@@ -21,6 +21,10 @@ public class RideCreationDTO {
     private boolean petsAllowed;
     private String rideNotes; // Optional
     private LocalDateTime estimatedArrivalTime;
+    private Double departureLatitude; // Optional, enables radius search
+    private Double departureLongitude;
+    private Double destinationLatitude;
+    private Double destinationLongitude;
 
     // --- Getters and Setters (or use Lombok @Data) ---
 
@@ -68,4 +72,16 @@ public class RideCreationDTO {
 
     public LocalDateTime getEstimatedArrivalTime() { return estimatedArrivalTime; }
     public void setEstimatedArrivalTime(LocalDateTime estimatedArrivalTime) { this.estimatedArrivalTime = estimatedArrivalTime; }
+
+    public Double getDepartureLatitude() { return departureLatitude; }
+    public void setDepartureLatitude(Double departureLatitude) { this.departureLatitude = departureLatitude; }
+
+    public Double getDepartureLongitude() { return departureLongitude; }
+    public void setDepartureLongitude(Double departureLongitude) { this.departureLongitude = departureLongitude; }
+
+    public Double getDestinationLatitude() { return destinationLatitude; }
+    public void setDestinationLatitude(Double destinationLatitude) { this.destinationLatitude = destinationLatitude; }
+
+    public Double getDestinationLongitude() { return destinationLongitude; }
+    public void setDestinationLongitude(Double destinationLongitude) { this.destinationLongitude = destinationLongitude; }
 }
\ No newline at end of file
@@ -19,6 +19,10 @@ public class RideDTO {
     private String destinationAddress;
     private LocalDateTime departureTime;
     private LocalDateTime estimatedArrivalTime;
+    private Double departureLatitude;
+    private Double departureLongitude;
+    private Double destinationLatitude;
+    private Double destinationLongitude;
     private int availableSeats;
     private int totalSeats;
     private double farePerSeat;
@@ -0,0 +1,25 @@
+package com.carsharing.backend.dto;
+
+import com.carsharing.backend.model.RideStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// List view of a ride (driver's "My rides"); RideDTO has the full details
+@Data
+public class RideSummaryDTO {
+    private String id;
+    private String departureCity;
+    private String departureState;
+    private String destinationCity;
+    private String destinationState;
+    private LocalDateTime departureTime;
+    private LocalDateTime estimatedArrivalTime;
+    private int availableSeats;
+    private int totalSeats;
+    private double farePerSeat;
+    private RideStatus status;
+    private String rideNotes;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,25 @@
+package com.carsharing.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class SlowQueryDTO {
+    private String database;
+    private String collection;
+    private String command;     // find, aggregate, update, ...
+    private String shape;       // Filter/sort/pipeline with literals replaced by "?"
+    private long count;         // Executions over the threshold
+    private double totalMs;
+    private double avgMs;
+    private double maxMs;
+    private double lastMs;
+    private LocalDateTime lastSeen;
+    private String planSummary; // Winning plan stages, e.g. "FETCH <- IXSCAN {...}"; null until explained
+    private Boolean collectionScan;
+    private List<String> indexes;
+    private LocalDateTime explainedAt;
+    private String explainError;
+}
@@ -15,6 +15,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "bookings") // Maps this class to the "bookings" collection
+// Indexes (by ride, passenger, driver inbox) are declared in IndexRegistry
 public class Booking {
 
     @Id
@@ -0,0 +1,42 @@
+package com.carsharing.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * All chat messages of a finished ride, moved out of chat_messages by ChatArchiveService.
+ * One document per ride (keyed by the ride ID); the messages are stored as gzip-compressed JSON.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "chat_archives")
+public class ChatArchive {
+
+    @Id
+    private String rideId; // One archive per ride
+
+    @Field("format") // Encoding of 'messages', so it can change later without rewriting old archives
+    private String format;
+
+    @Field("messages") // Compressed message list (see format)
+    private byte[] messages;
+
+    @Field("message_count")
+    private int messageCount;
+
+    @Field("first_message_at")
+    private LocalDateTime firstMessageAt;
+
+    @Field("last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Field("archived_at")
+    private LocalDateTime archivedAt;
+}
@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed; // Import for index
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -15,12 +14,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor // Lombok: Generates no-args constructor
 @AllArgsConstructor // Lombok: Generates all-args constructor
 @Document(collection = "chat_messages") // Maps this class to the "chat_messages" collection
+// Indexes (ride history, full-text search on content) are declared in IndexRegistry
 public class ChatMessage {
 
     @Id
     private String id; // MongoDB unique ID
 
-    @Indexed // Index for faster querying by ride
     @Field("ride_id")
     private String rideId;
 
@@ -35,7 +34,6 @@ public class ChatMessage {
 
     // Use @CreatedDate if MongoDB Auditing is enabled, otherwise set manually
     // @CreatedDate
-    @Indexed // Index for sorting by time
     @Field("timestamp")
     private LocalDateTime timestamp; // When the message was sent/saved
 
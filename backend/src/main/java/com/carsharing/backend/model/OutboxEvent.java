@@ -0,0 +1,56 @@
+package com.carsharing.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A notification waiting to be published, written next to the state change that caused it (OutboxService)
+ * and published by OutboxRelay. Events of one ride are published in sequence order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "outbox")
+// Indexes (relay query, 7-day TTL on published events) are declared in IndexRegistry
+public class OutboxEvent {
+
+    @Id
+    private String id; // ObjectId, assigned on insert by the writing node (so only roughly in insertion order)
+
+    @Field("ride_id") // Ordering key: events of the same ride are published one after another
+    private String rideId;
+
+    @Field("sequence") // Position among the ride's events, from the outbox_sequences counter (0 without a ride)
+    private long sequence;
+
+    @Field("type")
+    private OutboxEventType type;
+
+    @Field("recipient") // Principal name (email) for user-queue events; null for topic broadcasts
+    private String recipient;
+
+    @Field("payload") // Arguments of the NotificationService call
+    private Map<String, Object> payload;
+
+    @Field("created_at")
+    private LocalDateTime createdAt;
+
+    @Field("published_at") // Null until published (or given up on)
+    private LocalDateTime publishedAt;
+
+    @Field("attempts") // Failed publish attempts so far
+    private int attempts;
+
+    @Field("last_error") // Last publish failure, if any
+    private String lastError;
+
+    @Field("trace_headers") // Trace context of the request that wrote the event; the delivery joins its trace
+    private Map<String, String> traceHeaders;
+}
@@ -0,0 +1,11 @@
+package com.carsharing.backend.model;
+
+/**
+ * Kinds of events written to the outbox; each maps to one NotificationService call (see OutboxRelay).
+ */
+public enum OutboxEventType {
+    RIDE_STATUS_UPDATE,      // Ride started/completed/cancelled -> /topic/ride.{id}.status
+    BOOKING_REQUEST,         // New booking request -> driver's booking queue
+    BOOKING_STATUS_UPDATE,   // Booking confirmed/rejected/cancelled, ride changed -> passenger's booking queue
+    PASSENGER_CANCELLATION   // Passenger cancelled -> driver's booking queue
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;  // Optional: if using Lombok
 import org.springframework.data.annotation.CreatedDate; // For Auditing (Optional setup needed)
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate; // For Auditing (Optional setup needed)
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field; // Good practice for clarity
 import java.time.LocalDateTime;
@@ -15,6 +16,7 @@ import java.util.List;
 @NoArgsConstructor // Optional: Lombok annotation for no-args constructor
 @AllArgsConstructor // Optional: Lombok annotation for all-args constructor
 @Document(collection = "rides") // Maps this class to the "rides" collection in MongoDB
+// Indexes (route segments, corridor, geo, chat archival, ...) are declared in IndexRegistry
 public class Ride {
 
     @Id
@@ -41,6 +43,12 @@ public class Ride {
     @Field("destination_address") // More specific destination point (optional)
     private String destinationAddress;
 
+    @Field("origin_location") // GeoJSON point [lng, lat] of the departure point (optional)
+    private GeoJsonPoint originLocation;
+
+    @Field("destination_location") // GeoJSON point [lng, lat] of the destination point (optional)
+    private GeoJsonPoint destinationLocation;
+
     @Field("departure_time") // Scheduled departure time
     private LocalDateTime departureTime;
 
@@ -59,6 +67,12 @@ public class Ride {
     @Field("intermediate_stops") // List of stop names (optional)
     private List<String> intermediateStops;
 
+    @Field("route_segments") // Derived "A->B" keys for every ordered pair of route points (see RouteKeys)
+    private List<String> routeSegments;
+
+    @Field("route_keys_version") // LocationNormalizer dictionary version the route_segments were built with
+    private String routeKeysVersion;
+
     // --- Preferences & Details ---
 
     @Field("allow_luggage") // e.g., "NONE", "SMALL", "MEDIUM", "LARGE" (Could be Enum later)
@@ -86,4 +100,7 @@ public class Ride {
     @Field("updated_at")
     private LocalDateTime updatedAt;
 
+    @Field("chat_archived_at") // When the ride's chat was moved to chat_archives (null = not archived)
+    private LocalDateTime chatArchivedAt;
+
 }
\ No newline at end of file
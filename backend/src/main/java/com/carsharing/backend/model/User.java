@@ -1,11 +1,9 @@
 package com.carsharing.backend.model;
 
 import java.util.List;
-import java.util.ArrayList; // Import ArrayList
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.Field; // Import Field
 
 
 import lombok.Data;
@@ -23,13 +21,12 @@ public class User {
     private List<String> roles; 
     private String driverStatus; // e.g., "NONE", "PENDING_APPROVAL", "APPROVED", "REJECTED"
 
-    @Field("documents") // Optional, good practice
-    private List<DocumentInfo> documents = new ArrayList<>(); // Initialize to avoid nulls
+    // Uploaded documents live in the document_info collection (DocumentInfo.userId), not in the user document:
+    // users are read on every request, so they must stay small (see UserDocumentsMigration)
 
    
     public User() {
         this.driverStatus = "NONE";
-        this.documents = new ArrayList<>(); 
     }
 
 
@@ -40,7 +37,6 @@ public class User {
         this.password = password;
         this.roles = roles;
         this.driverStatus = "NONE"; 
-        this.documents = new ArrayList<>();
     }
 
     // === Getters and Setters ===
@@ -88,8 +84,5 @@ public class User {
     public String getDriverStatus() { return driverStatus; }
     public void setDriverStatus(String driverStatus) { this.driverStatus = driverStatus; }
 
-    public List<DocumentInfo> getDocuments() { return documents; }
-    public void setDocuments(List<DocumentInfo> documents) { this.documents = documents; }
-
   }
 
@@ -2,6 +2,8 @@ package com.carsharing.backend.repository;
 
 import com.carsharing.backend.model.Booking;
 import com.carsharing.backend.model.BookingStatus; // Keep this import
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -26,14 +28,13 @@ public interface BookingRepository extends MongoRepository<Booking, String> {
     // Find bookings for a specific driver with a specific status (using Enum)
     List<Booking> findByDriverIdAndStatus(String driverId, BookingStatus status);
 
+    // Paginated driver inbox, served by the (driver_id, status, created_at) compound index
+    Page<Booking> findByDriverIdAndStatusOrderByCreatedAtDesc(String driverId, BookingStatus status, Pageable pageable);
+
     // Find bookings for a specific ride matching any of the given statuses (using Enum)
     List<Booking> findByRideIdAndStatusIn(String rideId, Set<BookingStatus> statuses); // Changed Collection to Set
 
     // Check if a passenger has an active booking for a specific ride (using Enum)
     // Renamed from existsByRideIdAndPassengerIdAndStatus to reflect checking multiple statuses
     boolean existsByRideIdAndPassengerIdAndStatusIn(String rideId, String passengerId, Set<BookingStatus> statuses); // Changed to Set for statuses
-
-    // You might also need methods like:
-    // List<Booking> findByDriverIdAndStatusIn(String driverId, Set<BookingStatus> statuses);
-    // if you want to fetch, for example, all REQUESTED bookings for a driver.
 }
\ No newline at end of file
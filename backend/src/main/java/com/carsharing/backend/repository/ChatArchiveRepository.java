@@ -0,0 +1,8 @@
+package com.carsharing.backend.repository;
+
+import com.carsharing.backend.model.ChatArchive;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+// Archives are looked up by ride ID only (the document ID), so no extra finders are needed
+public interface ChatArchiveRepository extends MongoRepository<ChatArchive, String> {
+}
@@ -3,6 +3,7 @@ package com.carsharing.backend.repository; // <-- FIX: Add correct package
 import com.carsharing.backend.model.ChatMessage; // <-- FIX: Import ChatMessage model
 import org.springframework.data.domain.Sort;       // <-- FIX: Import Sort
 import org.springframework.data.mongodb.repository.MongoRepository; // <-- FIX: Import MongoRepository
+import java.util.Collection;
 import java.util.List;                             // <-- FIX: Import List
 
 public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
@@ -11,4 +12,7 @@ public interface ChatMessageRepository extends MongoRepository<ChatMessage, Stri
     List<ChatMessage> findByRideId(String rideId, Sort sort);
     // List<ChatMessage> findByRideIdOrderByTimestampAsc(String rideId); // Alternatively
 
+    // Bulk delete (a single deleteMany) of messages that have been copied into a ChatArchive
+    long deleteByIdIn(Collection<String> ids);
+
 }
\ No newline at end of file
@@ -7,7 +7,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface DocumentInfoRepository extends MongoRepository<DocumentInfo, String> {
+public interface DocumentInfoRepository extends MongoRepository<DocumentInfo, String>, DocumentInfoRepositoryCustom {
     List<DocumentInfo> findByUserId(String userId);
     Optional<DocumentInfo> findByIdAndUserId(String id, String userId);
     List<DocumentInfo> findByStatus(DocumentStatus status);
@@ -0,0 +1,22 @@
+package com.carsharing.backend.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Document queries that can't be expressed as derived finder methods (implemented in DocumentInfoRepositoryCustomImpl).
+ */
+public interface DocumentInfoRepositoryCustom {
+
+    /**
+     * Number of distinct types among {@code documentTypes} for which the user has at least one APPROVED document.
+     * Runs as one aggregation on user_type_status_idx (userId, documentType, status); only index keys are read.
+     */
+    int countApprovedDocumentTypes(String userId, Collection<String> documentTypes);
+
+    /**
+     * {@link #countApprovedDocumentTypes(String, Collection)} for many users in one aggregation, by user ID.
+     * Users without any approved document of those types are absent from the map.
+     */
+    Map<String, Integer> countApprovedDocumentTypes(Collection<String> userIds, Collection<String> documentTypes);
+}
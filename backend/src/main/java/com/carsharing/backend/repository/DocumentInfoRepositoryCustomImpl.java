@@ -0,0 +1,58 @@
+package com.carsharing.backend.repository;
+
+import com.carsharing.backend.model.DocumentInfo;
+import com.carsharing.backend.model.DocumentStatus;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public class DocumentInfoRepositoryCustomImpl implements DocumentInfoRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public DocumentInfoRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public int countApprovedDocumentTypes(String userId, Collection<String> documentTypes) {
+        // Equality on userId and status, $in on documentType: bounded ranges on the compound index. The $group
+        // collapses re-uploads of the same type, so one document comes back however many files the user has.
+        TypedAggregation<DocumentInfo> aggregation = Aggregation.newAggregation(DocumentInfo.class,
+                Aggregation.match(Criteria.where("userId").is(userId)
+                        .and("documentType").in(documentTypes)
+                        .and("status").is(DocumentStatus.APPROVED)),
+                Aggregation.group("documentType"),
+                Aggregation.count().as("types"));
+        Document result = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+        // $count emits nothing when no document matched
+        return result == null ? 0 : result.getInteger("types", 0);
+    }
+
+    @Override
+    public Map<String, Integer> countApprovedDocumentTypes(Collection<String> userIds, Collection<String> documentTypes) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return counts;
+        }
+        // Same index ranges as above, one per user; the first $group collapses re-uploads, the second counts types per user
+        TypedAggregation<DocumentInfo> aggregation = Aggregation.newAggregation(DocumentInfo.class,
+                Aggregation.match(Criteria.where("userId").in(userIds)
+                        .and("documentType").in(documentTypes)
+                        .and("status").is(DocumentStatus.APPROVED)),
+                Aggregation.group("userId", "documentType"),
+                Aggregation.group("userId").count().as("types"));
+        for (Document result : mongoTemplate.aggregate(aggregation, Document.class).getMappedResults()) {
+            counts.put(result.getString("_id"), result.getInteger("types", 0));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,20 @@
+package com.carsharing.backend.repository;
+
+import com.carsharing.backend.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String> {
+
+    // Next batch for the relay (uses published_at_id_idx)
+    List<OutboxEvent> findByPublishedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    // A ride's unpublished events that come before the given sequence (uses ride_published_at_sequence_idx)
+    List<OutboxEvent> findByRideIdAndPublishedAtIsNullAndSequenceLessThanOrderBySequenceAsc(String rideId, long sequence);
+
+    // Oldest unpublished event, for the outbox lag metric
+    Optional<OutboxEvent> findFirstByPublishedAtIsNullOrderByIdAsc();
+}
@@ -2,27 +2,60 @@ package com.carsharing.backend.repository;
 
 import com.carsharing.backend.model.Ride;
 import com.carsharing.backend.model.RideStatus; // <-- ADD THIS IMPORT
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface RideRepository extends MongoRepository<Ride, String> {
+public interface RideRepository extends MongoRepository<Ride, String>, RideRepositoryCustom {
 
     // Find rides offered by a specific driver
     List<Ride> findByDriverId(String driverId);
 
-    // Updated search query to include RideStatus
-    List<Ride> findByDepartureCityAndDestinationCityAndDepartureStateAndDestinationStateAndStatusAndDepartureTimeAfterAndAvailableSeatsGreaterThan(
-            String departureCity,
-            String destinationCity,
-            String departureState,
-            String destinationState,
-            RideStatus status, // <-- ADDED RideStatus parameter
+    // Driver's ride list (GET /api/driver/my-rides): closed projection, so route segments, coordinates etc. stay in Mongo
+    List<RideSummaryView> findSummariesByDriverIdOrderByDepartureTimeDesc(String driverId);
+
+    // Route-aware search: matches any ride whose route_segments contain the requested "A->B" segment
+    List<Ride> findByRouteSegmentsAndStatusAndDepartureTimeAfterAndAvailableSeatsGreaterThan(
+            String routeSegment,
+            RideStatus status,
+            LocalDateTime departureTime,
+            int availableSeats
+    );
+
+    // All rides that can currently show up in a search (used to warm up / verify RideSearchIndex)
+    List<Ride> findByStatusAndDepartureTimeAfterAndAvailableSeatsGreaterThan(
+            RideStatus status,
             LocalDateTime departureTime,
             int availableSeats
     );
-    
+
+    // Finished rides, last modified before the cutoff, whose chat is still in chat_messages (chat archival job)
+    List<Ride> findByStatusInAndUpdatedAtBeforeAndChatArchivedAtIsNull(
+            Collection<RideStatus> statuses,
+            LocalDateTime updatedBefore,
+            Pageable pageable
+    );
+
+    // Fields of a ride shown in list views
+    interface RideSummaryView {
+        String getId();
+        String getDepartureCity();
+        String getDepartureState();
+        String getDestinationCity();
+        String getDestinationState();
+        LocalDateTime getDepartureTime();
+        LocalDateTime getEstimatedArrivalTime();
+        int getAvailableSeats();
+        int getTotalSeats();
+        double getFarePerSeat();
+        RideStatus getStatus();
+        String getRideNotes();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.carsharing.backend.repository;
+
+import com.carsharing.backend.model.Ride;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Ride queries that can't be expressed as derived finder methods (implemented in RideRepositoryCustomImpl).
+ */
+public interface RideRepositoryCustom {
+
+    /**
+     * Finds SCHEDULED rides with free seats whose origin is within {@code originRadiusKm} of the given point
+     * and whose destination is within {@code destinationRadiusKm} of the other point, departing after {@code after}.
+     * Runs as a single $geoNear aggregation; results are ordered by distance from the origin point.
+     */
+    List<Ride> findNearby(double originLng, double originLat, double originRadiusKm,
+                          double destinationLng, double destinationLat, double destinationRadiusKm,
+                          LocalDateTime after, int limit);
+
+    /**
+     * Streams rides whose route_segments were built with another alias dictionary, or not at all. Only the route
+     * fields (id, cities, states, intermediate stops) are read; the caller must close the stream.
+     */
+    Stream<Ride> streamRoutesWithRouteKeysVersionNot(String routeKeysVersion);
+
+    /**
+     * Sets only the route_segments / route_keys_version fields of the given rides (ride ID -> segment keys) in one
+     * unordered bulk write, leaving every other field untouched (used by the startup backfill so it can't
+     * overwrite concurrent bookings or edits).
+     */
+    void setRouteSegments(Map<String, List<String>> routeSegmentsByRideId, String routeKeysVersion);
+
+    /**
+     * Sets only chat_archived_at (and doesn't touch updated_at), marking the ride's chat as archived.
+     */
+    void markChatArchived(String rideId, LocalDateTime archivedAt);
+
+    /**
+     * Number of rides per (city, state), counting both departure and destination, over all rides.
+     * Used to seed the location autocomplete.
+     */
+    List<LocationCount> countRidesByLocation();
+
+    record LocationCount(String city, String state, long count) {}
+}
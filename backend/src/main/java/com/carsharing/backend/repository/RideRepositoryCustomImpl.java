@@ -0,0 +1,103 @@
+package com.carsharing.backend.repository;
+
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.RideStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class RideRepositoryCustomImpl implements RideRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public RideRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Ride> findNearby(double originLng, double originLat, double originRadiusKm,
+                                 double destinationLng, double destinationLat, double destinationRadiusKm,
+                                 LocalDateTime after, int limit) {
+        // Everything except the origin distance is pushed into $geoNear's query, so Mongo filters while walking
+        // the origin_location 2dsphere index instead of returning candidates for client-side filtering.
+        Query filter = new Query(Criteria.where("status").is(RideStatus.SCHEDULED)
+                .and("departureTime").gt(after)
+                .and("availableSeats").gt(0)
+                .and("destinationLocation").withinSphere(new Circle(
+                        new Point(destinationLng, destinationLat),
+                        new Distance(destinationRadiusKm, Metrics.KILOMETERS))));
+
+        NearQuery near = NearQuery.near(new GeoJsonPoint(originLng, originLat))
+                .spherical(true)
+                .maxDistance(new Distance(originRadiusKm, Metrics.KILOMETERS)) // Rendered as meters for GeoJSON
+                .query(filter)
+                .limit(limit);
+
+        TypedAggregation<Ride> aggregation = Aggregation.newAggregation(Ride.class,
+                Aggregation.geoNear(near, "originDistance").useIndex("origin_location"));
+        return mongoTemplate.aggregate(aggregation, Ride.class).getMappedResults();
+    }
+
+    @Override
+    public Stream<Ride> streamRoutesWithRouteKeysVersionNot(String routeKeysVersion) {
+        Query query = new Query(Criteria.where("routeKeysVersion").ne(routeKeysVersion)); // $ne also matches a missing field
+        query.fields().include("departureCity", "departureState", "destinationCity", "destinationState", "intermediateStops");
+        return mongoTemplate.stream(query, Ride.class);
+    }
+
+    @Override
+    public void setRouteSegments(Map<String, List<String>> routeSegmentsByRideId, String routeKeysVersion) {
+        if (routeSegmentsByRideId.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+        routeSegmentsByRideId.forEach((rideId, routeSegments) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(rideId)),
+                new Update().set("routeSegments", routeSegments).set("routeKeysVersion", routeKeysVersion)));
+        bulk.execute();
+    }
+
+    @Override
+    public void markChatArchived(String rideId, LocalDateTime archivedAt) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(rideId)),
+                new Update().set("chatArchivedAt", archivedAt),
+                Ride.class);
+    }
+
+    @Override
+    public List<LocationCount> countRidesByLocation() {
+        // Two $group passes (departure side, destination side) so Mongo does the counting; at most one row per place each
+        List<LocationCount> counts = new ArrayList<>();
+        counts.addAll(countBy("departureCity", "departureState"));
+        counts.addAll(countBy("destinationCity", "destinationState"));
+        return counts;
+    }
+
+    private List<LocationCount> countBy(String cityField, String stateField) {
+        TypedAggregation<Ride> aggregation = Aggregation.newAggregation(Ride.class,
+                Aggregation.group(cityField, stateField).count().as("count"),
+                Aggregation.project("count").and(cityField).as("city").and(stateField).as("state"));
+        AggregationResults<LocationCount> results = mongoTemplate.aggregate(aggregation, LocationCount.class);
+        return results.getMappedResults();
+    }
+}
@@ -12,5 +12,20 @@ import com.carsharing.backend.model.User;
 public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
-    List<User> findByDriverStatus(String driverStatus);
+
+    // --- Read models (closed projections: Mongo returns only these fields, never the password hash) ---
+
+    // Admin queue of driver applications (partial index driver_status_pending_idx)
+    List<UserProfileView> findProfilesByDriverStatus(String driverStatus);
+
+    // When only the caller's id/roles are needed
+    Optional<UserProfileView> findProfileByEmail(String email);
+
+    interface UserProfileView {
+        String getId();
+        String getName();
+        String getEmail();
+        List<String> getRoles();
+        String getDriverStatus();
+    }
 }
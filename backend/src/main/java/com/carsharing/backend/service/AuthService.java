@@ -6,6 +6,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -51,8 +52,13 @@ public class AuthService {
         // Assumes "PASSENGER" role was initialized at startup
         newUser.setRoles(List.of("PASSENGER"));
 
-        // 4. Save the new user
-        userRepo.save(newUser);
+        // 4. Save the new user (the unique email index catches a concurrent signup that passed the check above)
+        try {
+            userRepo.save(newUser);
+        } catch (DuplicateKeyException e) {
+            log.warn("Registration attempt failed: Email {} was registered concurrently.", request.getEmail());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Email already exists");
+        }
         log.info("User registered successfully with email: {} and default role PASSENGER", newUser.getEmail());
 
         // 5. Generate JWT token
@@ -387,10 +387,16 @@ import com.carsharing.backend.model.*; // User, Ride, Booking, RideStatus, Booki
 import com.carsharing.backend.repository.BookingRepository;
 import com.carsharing.backend.repository.RideRepository;
 import com.carsharing.backend.repository.UserRepository;
+import com.carsharing.backend.util.AfterCommit;
 
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -417,25 +423,33 @@ public class BookingService {
     public static final Set<BookingStatus> ACTIVE_BOOKING_STATES = Set.of(
             BookingStatus.REQUESTED, BookingStatus.CONFIRMED
     );
+    public static final int MAX_INBOX_PAGE_SIZE = 100;
 
     private final BookingRepository bookingRepository;
     private final RideRepository rideRepository; // Already here, needed for new fields
     private final UserRepository userRepository; // Already here, needed for new fields
-    private final NotificationService notificationService;
+    private final OutboxService outboxService; // Notifications go through the outbox (published by OutboxRelay)
+    private final RideSearchIndex rideSearchIndex; // Kept in sync with seat changes
+    private final RideSearchCache rideSearchCache; // Cached searches show seat counts, so they're invalidated too
 
     @Autowired
     public BookingService(BookingRepository bookingRepository,
                           RideRepository rideRepository,
                           UserRepository userRepository,
-                          NotificationService notificationService
+                          OutboxService outboxService,
+                          RideSearchIndex rideSearchIndex,
+                          RideSearchCache rideSearchCache
                           ) {
         this.bookingRepository = bookingRepository;
         this.rideRepository = rideRepository;
         this.userRepository = userRepository;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.rideSearchIndex = rideSearchIndex;
+        this.rideSearchCache = rideSearchCache;
     }
 
     @Transactional
+    @Timed(value = "bookings.request", description = "Passenger booking request", histogram = true)
     public BookingDTO requestBooking(String rideId, BookingRequestDTO bookingRequestDTO, String passengerEmail) {
         User passenger = findUserByEmail(passengerEmail);
         Ride ride = findRideById(rideId);
@@ -464,7 +478,8 @@ public class BookingService {
         }
 
         ride.setAvailableSeats(ride.getAvailableSeats() - requestedSeats);
-        rideRepository.save(ride);
+        Ride savedRide = rideRepository.save(ride);
+        refreshSearchAfterCommit(savedRide);
 
         Booking newBooking = new Booking();
         newBooking.setRideId(rideId);
@@ -479,12 +494,13 @@ public class BookingService {
 
         User driver = userRepository.findById(ride.getDriverId())
                 .orElseThrow(() -> new ResourceNotFoundException("Driver for ride not found"));
-        notificationService.sendBookingRequestNotification(driver.getEmail(), savedBooking.getId(), passenger.getName(), ride.getDepartureCity(), ride.getDestinationCity());
+        outboxService.sendBookingRequestNotification(rideId, driver.getEmail(), savedBooking.getId(), passenger.getName(), ride.getDepartureCity(), ride.getDestinationCity());
 
         return convertToDto(savedBooking); // DTO conversion will now include new fields
     }
 
     @Transactional
+    @Timed(value = "bookings.confirm", description = "Driver booking confirmation", histogram = true)
     public BookingDTO confirmBooking(String bookingId, String driverEmail) {
         log.info("Driver '{}' attempting to confirm booking ID: {}", driverEmail, bookingId);
         User driver = findUserByEmail(driverEmail);
@@ -506,7 +522,8 @@ public class BookingService {
         User passenger = userRepository.findById(booking.getPassengerId())
             .orElseThrow(() -> new ResourceNotFoundException("Passenger not found for notification with ID: " + booking.getPassengerId()));
 
-        notificationService.sendBookingUpdateNotification(
+        outboxService.sendBookingUpdateNotification(
+                updatedBooking.getRideId(),
                 passenger.getEmail(), // Send to passenger's email
                 updatedBooking.getId(),
                 updatedBooking.getStatus(),
@@ -537,7 +554,8 @@ public class BookingService {
         User passenger = userRepository.findById(booking.getPassengerId())
             .orElseThrow(() -> new ResourceNotFoundException("Passenger not found for notification with ID: " + booking.getPassengerId()));
 
-        notificationService.sendBookingUpdateNotification(
+        outboxService.sendBookingUpdateNotification(
+                updatedBooking.getRideId(),
                 passenger.getEmail(),
                 updatedBooking.getId(),
                 updatedBooking.getStatus(),
@@ -581,7 +599,7 @@ public class BookingService {
 
         User driverUser = userRepository.findById(ride.getDriverId())
                 .orElseThrow(() -> new ResourceNotFoundException("Driver for ride not found"));
-        notificationService.sendPassengerCancellationNotification(driverUser.getEmail(), bookingId, passenger.getName(), ride.getDepartureCity(), ride.getDestinationCity());
+        outboxService.sendPassengerCancellationNotification(ride.getId(), driverUser.getEmail(), bookingId, passenger.getName(), ride.getDepartureCity(), ride.getDestinationCity());
 
         return convertToDto(updatedBooking); // DTO conversion will now include new fields
     }
@@ -593,6 +611,21 @@ public class BookingService {
         return convertToDtoList(bookings); // DTO conversion will now include new fields
     }
 
+    /**
+     * Driver inbox: pending (REQUESTED) bookings across all of the driver's rides, newest first.
+     * One indexed query on (driver_id, status, created_at) plus batched ride/user lookups for the page.
+     */
+    public Page<BookingDTO> getPendingBookingsForDriver(String driverEmail, int page, int size) {
+        User driver = findUserByEmail(driverEmail);
+        int pageSize = Math.max(1, Math.min(size, MAX_INBOX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize);
+        log.info("Fetching pending booking requests for driver ID: {} (page {}, size {})", driver.getId(), pageable.getPageNumber(), pageSize);
+
+        Page<Booking> bookings = bookingRepository.findByDriverIdAndStatusOrderByCreatedAtDesc(
+                driver.getId(), BookingStatus.REQUESTED, pageable);
+        return new PageImpl<>(convertToDtoList(bookings.getContent()), pageable, bookings.getTotalElements());
+    }
+
     @Transactional
     public void cancelBookingsForRide(String rideId, BookingStatus newStatusForBookings) {
         log.info("Cancelling bookings for ride ID: {} with status: {}", rideId, newStatusForBookings);
@@ -615,7 +648,8 @@ public class BookingService {
                     return null; // Or a dummy user if notification service requires non-null
                 });
             if (passenger != null) {
-                notificationService.sendBookingUpdateNotification(
+                outboxService.sendBookingUpdateNotification(
+                        rideId,
                         passenger.getEmail(),
                         booking.getId(),
                         newStatusForBookings,
@@ -665,7 +699,8 @@ public class BookingService {
                     return null;
                 });
             if (passenger != null) {
-                notificationService.sendBookingUpdateNotification(
+                outboxService.sendBookingUpdateNotification(
+                    rideId,
                     passenger.getEmail(),
                     booking.getId(),
                     booking.getStatus(),
@@ -709,10 +744,19 @@ public class BookingService {
         Ride ride = findRideById(rideId);
         int newSeatCount = Math.min(ride.getTotalSeats(), ride.getAvailableSeats() + seatsToIncrement);
         ride.setAvailableSeats(newSeatCount);
-        rideRepository.save(ride);
+        Ride savedRide = rideRepository.save(ride);
+        refreshSearchAfterCommit(savedRide);
         log.info("Incremented available seats for ride ID: {} by {} (New count: {})", rideId, seatsToIncrement, newSeatCount);
     }
 
+    // Seat counts are part of the search results; update the index and cache once the seat change is committed
+    private void refreshSearchAfterCommit(Ride savedRide) {
+        AfterCommit.run(() -> {
+            rideSearchIndex.upsert(savedRide);
+            rideSearchCache.invalidate(savedRide);
+        });
+    }
+
     // --- UPDATED DTO CONVERSION METHOD (SINGLE) ---
     private BookingDTO convertToDto(Booking booking) {
         if (booking == null) return null;
@@ -734,6 +778,7 @@ public class BookingService {
             dto.setDestinationCity(ride.getDestinationCity());
             dto.setDepartureState(ride.getDepartureState());
             dto.setDestinationState(ride.getDestinationState());
+            dto.setDepartureTime(ride.getDepartureTime());
         } else {
             log.warn("Ride with ID {} not found for booking ID {}. Ride details for DTO will be incomplete.", booking.getRideId(), booking.getId());
             dto.setDepartureCity("N/A"); // Default or leave null
@@ -760,12 +805,13 @@ public class BookingService {
             return Collections.emptyList();
         }
 
-        // Collect all unique ride IDs and driver IDs from the list of bookings
+        // Collect all unique ride IDs and user IDs (drivers and passengers) from the list of bookings
         Set<String> rideIds = new HashSet<>();
-        Set<String> driverIds = new HashSet<>();
+        Set<String> userIds = new HashSet<>();
         for (Booking booking : bookings) {
             rideIds.add(booking.getRideId());
-            driverIds.add(booking.getDriverId());
+            userIds.add(booking.getDriverId());
+            userIds.add(booking.getPassengerId());
         }
 
         // Fetch all necessary Rides in one go
@@ -775,10 +821,10 @@ public class BookingService {
         }
 
 
-        // Fetch all necessary Users (drivers) in one go
-        Map<String, User> driversMap = new HashMap<>();
-        if(!driverIds.isEmpty()){ // Avoid querying if no driver IDs
-             userRepository.findAllById(driverIds).forEach(user -> driversMap.put(user.getId(), user));
+        // Fetch all necessary Users (drivers and passengers) in one go
+        Map<String, User> usersMap = new HashMap<>();
+        if(!userIds.isEmpty()){ // Avoid querying if no user IDs
+             userRepository.findAllById(userIds).forEach(user -> usersMap.put(user.getId(), user));
         }
 
 
@@ -801,6 +847,7 @@ public class BookingService {
                 dto.setDestinationCity(ride.getDestinationCity());
                 dto.setDepartureState(ride.getDepartureState());
                 dto.setDestinationState(ride.getDestinationState());
+                dto.setDepartureTime(ride.getDepartureTime());
             } else {
                 log.warn("Ride with ID {} not found for booking ID {}. Ride details for DTO list item will be incomplete.", booking.getRideId(), booking.getId());
                 dto.setDepartureCity("N/A");
@@ -809,13 +856,16 @@ public class BookingService {
                 dto.setDestinationState("N/A");
             }
 
-            User driver = driversMap.get(booking.getDriverId());
+            User driver = usersMap.get(booking.getDriverId());
             if (driver != null) {
                 dto.setDriverName(driver.getName()); // Assuming User has getName()
             } else {
                 log.warn("Driver with ID {} not found for booking ID {}. Driver name for DTO list item will be incomplete.", booking.getDriverId(), booking.getId());
                 dto.setDriverName("Unknown Driver");
             }
+
+            User passenger = usersMap.get(booking.getPassengerId());
+            dto.setPassengerName(passenger != null ? passenger.getName() : "Unknown Passenger");
             return dto;
         }).collect(Collectors.toList());
     }
@@ -0,0 +1,29 @@
+package com.carsharing.backend.service;
+
+import org.bson.Document;
+
+/**
+ * A change to a cached collection, seen by ChangeStreamInvalidator and published as a Spring application event.
+ * Local caches listen for the collections they hold (see RideInvalidationListener for rides).
+ *
+ * @param collection   Collection name ("rides", "users", "bookings"), or null for "everything may have changed".
+ * @param documentId   ID of the changed document (null with a null collection).
+ * @param fullDocument Current version of the document, or null if it was deleted.
+ */
+public record CacheInvalidationEvent(String collection, String documentId, Document fullDocument) {
+
+    /**
+     * Cross-node invalidation fell behind or lost its position: drop everything and reload.
+     */
+    public static CacheInvalidationEvent all() {
+        return new CacheInvalidationEvent(null, null, null);
+    }
+
+    public boolean isAll() {
+        return collection == null;
+    }
+
+    public boolean concerns(String name) {
+        return isAll() || name.equals(collection);
+    }
+}
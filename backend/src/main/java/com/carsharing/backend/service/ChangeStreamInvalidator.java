@@ -0,0 +1,286 @@
+package com.carsharing.backend.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-node cache invalidation: tails a MongoDB change stream on rides, users and bookings and publishes a
+ * {@link CacheInvalidationEvent} per change, so every node's local caches see writes made by the others.
+ *
+ * - Restart: the stream's resume token is saved (per node, in change_stream_tokens) at most every
+ *   token-save-interval-ms, and the stream resumes from it, replaying what the node missed while down.
+ *   The token is keyed by cache.change-streams.node-id, which must be set, stable across restarts and unique per
+ *   process: two processes sharing an ID (e.g. on one host) would resume from each other's position and skip changes.
+ * - Bounded lag: if events arrive more than max-lag-ms after they were written, or the stream fails, every
+ *   cache is flushed once (CacheInvalidationEvent.all()) and local caches fall back to their TTLs
+ *   (rides.search-cache.ttl-ms) and the search index consistency check until the stream catches up.
+ * - A lost position (token older than the oplog, or no token on first start) triggers a full reload.
+ *
+ * Change streams need a replica set (a single-node one is enough), so this is off by default.
+ *
+ * Metrics: cache.invalidation.lag (ms), cache.invalidation.events{collection}, cache.invalidation.fallbacks,
+ * cache.invalidation.connected.
+ */
+@Component
+public class ChangeStreamInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamInvalidator.class);
+
+    private static final List<String> COLLECTIONS = List.of("rides", "users", "bookings");
+    private static final String TOKEN_COLLECTION = "change_stream_tokens";
+    // ChangeStreamHistoryLost / ChangeStreamFatalError: the saved token can't be resumed from
+    private static final Set<Integer> LOST_POSITION_CODES = Set.of(286, 280);
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long maxLagMs;
+    private final long tokenSaveIntervalMs;
+
+    private volatile boolean running = false;
+    private volatile boolean connected = false;
+    private volatile boolean degraded = false; // Caches flushed and running on TTLs until the stream catches up
+    private volatile long lagMillis = 0;
+    private Thread worker;
+
+    private BsonDocument resumeToken; // Worker thread only
+    private long tokenSavedAt;
+
+    private final Counter fallbacks;
+
+    public ChangeStreamInvalidator(MongoTemplate mongoTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${cache.change-streams.enabled:false}") boolean enabled,
+                                   @Value("${cache.change-streams.node-id:}") String nodeId,
+                                   @Value("${cache.change-streams.max-lag-ms:10000}") long maxLagMs,
+                                   @Value("${cache.change-streams.token-save-interval-ms:1000}") long tokenSaveIntervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        if (enabled && nodeId.isBlank()) {
+            throw new IllegalArgumentException("cache.change-streams.node-id must be set (unique per backend process) "
+                    + "when cache.change-streams.enabled=true.");
+        }
+        this.nodeId = nodeId.trim();
+        this.maxLagMs = maxLagMs;
+        this.tokenSaveIntervalMs = tokenSaveIntervalMs;
+
+        Gauge.builder("cache.invalidation.lag", this, invalidator -> invalidator.lagMillis)
+                .description("Delay between a write and its change stream event reaching this node (ms)").register(meterRegistry);
+        Gauge.builder("cache.invalidation.connected", this, invalidator -> invalidator.connected ? 1 : 0)
+                .description("1 while the invalidation change stream is open").register(meterRegistry);
+        this.fallbacks = Counter.builder("cache.invalidation.fallbacks")
+                .description("Full cache flushes because the change stream lagged, failed or lost its position").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Change stream cache invalidation disabled; caches on other nodes rely on their TTLs.");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "cache-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker == null) {
+            return;
+        }
+        running = false; // The worker notices within maxAwaitTime and saves its token on the way out
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        resumeToken = loadToken();
+        boolean reloadNeeded = resumeToken == null; // No position: we can't know what changed before now
+        long backoffMs = 1000;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open()) {
+                connected = true;
+                backoffMs = 1000;
+                log.info("Cache invalidation change stream open on {} (node {}, {}).", COLLECTIONS, nodeId,
+                        resumeToken != null ? "resuming" : "from now");
+                if (reloadNeeded) {
+                    fallBack("no resume position", true); // Stream position is set, so reloading now leaves no gap
+                    reloadNeeded = false;
+                }
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext(); // Waits up to maxAwaitTime
+                    if (change == null) {
+                        lagMillis = 0; // Caught up
+                        recoverIfCaughtUp();
+                        updateToken(cursor.getResumeToken(), false);
+                        continue;
+                    }
+                    handle(change);
+                    updateToken(change.getResumeToken(), false);
+                }
+                updateToken(resumeToken, true);
+            } catch (MongoException e) {
+                connected = false;
+                if (e instanceof MongoCommandException commandException && LOST_POSITION_CODES.contains(commandException.getErrorCode())) {
+                    log.warn("Change stream position lost ({}); restarting from now with a full reload.", e.getMessage());
+                    resumeToken = null;
+                    reloadNeeded = true;
+                } else {
+                    log.warn("Cache invalidation change stream failed, retrying in {} ms: {}", backoffMs, e.getMessage());
+                }
+                fallBack("change stream failed", false);
+                sleepQuietly(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            } catch (RuntimeException e) {
+                log.error("Error applying cache invalidation, restarting the stream: {}", e.getMessage(), e);
+                sleepQuietly(backoffMs);
+            }
+        }
+        connected = false;
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        var stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", COLLECTIONS))), Document.class)
+                .fullDocument(FullDocument.UPDATE_LOOKUP) // Listeners get the current document, not a diff
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private void handle(ChangeStreamDocument<Document> change) {
+        if (change.getClusterTime() != null) {
+            lagMillis = Math.max(0, System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(change.getClusterTime().getTime()));
+            if (lagMillis > maxLagMs) {
+                fallBack("lag " + lagMillis + " ms over the " + maxLagMs + " ms bound", false);
+            } else {
+                recoverIfCaughtUp();
+            }
+        }
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE, DELETE -> {
+                String collection = change.getNamespace() != null ? change.getNamespace().getCollectionName() : null;
+                String documentId = idOf(change.getDocumentKey());
+                meterRegistry.counter("cache.invalidation.events", "collection", String.valueOf(collection)).increment();
+                try {
+                    // Deleted (or deleted again before the update lookup ran): fullDocument is null
+                    eventPublisher.publishEvent(new CacheInvalidationEvent(collection, documentId, change.getFullDocument()));
+                } catch (RuntimeException e) {
+                    // Don't replay a change that a listener can't handle; flush instead so nothing stays stale
+                    log.error("Cache invalidation for {} {} failed: {}", collection, documentId, e.getMessage(), e);
+                    fallBack("listener failed", true);
+                }
+            }
+            default -> fallBack("collection-level change " + change.getOperationType(), true); // drop, rename, ...
+        }
+    }
+
+    private void fallBack(String reason, boolean force) {
+        if (degraded && !force) {
+            return; // Already flushed for this episode
+        }
+        degraded = true;
+        fallbacks.increment();
+        log.warn("Flushing local caches ({}); relying on cache TTLs until the change stream catches up.", reason);
+        eventPublisher.publishEvent(CacheInvalidationEvent.all());
+    }
+
+    private void recoverIfCaughtUp() {
+        if (degraded && connected && lagMillis <= maxLagMs / 2) {
+            degraded = false;
+            log.info("Cache invalidation change stream caught up (lag {} ms).", lagMillis);
+        }
+    }
+
+    // --- Resume token persistence ---
+
+    private MongoCollection<BsonDocument> tokens() {
+        return mongoTemplate.getDb().getCollection(TOKEN_COLLECTION, BsonDocument.class);
+    }
+
+    private BsonDocument loadToken() {
+        try {
+            BsonDocument saved = tokens().find(Filters.eq("_id", nodeId)).first();
+            return saved != null && saved.isDocument("token") ? saved.getDocument("token") : null;
+        } catch (MongoException e) {
+            log.warn("Could not load change stream resume token for node {}: {}", nodeId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void updateToken(BsonDocument token, boolean force) {
+        if (token == null) {
+            return;
+        }
+        resumeToken = token;
+        long now = System.currentTimeMillis();
+        if (!force && now - tokenSavedAt < tokenSaveIntervalMs) {
+            return;
+        }
+        BsonDocument saved = new BsonDocument("_id", new BsonString(nodeId))
+                .append("token", token)
+                .append("updated_at", new BsonDateTime(now));
+        tokens().replaceOne(Filters.eq("_id", nodeId), saved, new ReplaceOptions().upsert(true));
+        tokenSavedAt = now;
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString(); // Same form as the entities' String IDs
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
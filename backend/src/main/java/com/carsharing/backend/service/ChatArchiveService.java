@@ -0,0 +1,221 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.model.ChatArchive;
+import com.carsharing.backend.model.ChatMessage;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.RideStatus;
+import com.carsharing.backend.repository.ChatArchiveRepository;
+import com.carsharing.backend.repository.ChatMessageRepository;
+import com.carsharing.backend.repository.RideRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves the chat of finished rides out of chat_messages.
+ *
+ * Once a ride has been COMPLETED or CANCELLED_BY_DRIVER for chat.archive.after-days, a scheduled job writes
+ * all its messages into one gzip-compressed {@link ChatArchive} document, marks the ride, and bulk-deletes
+ * the originals. Each step is safe to repeat: if the job stops half-way, the next run merges whatever is
+ * still in chat_messages into the existing archive (by message ID) before deleting it.
+ *
+ * Once a ride is marked, ChatController refuses new messages for it; messages that were accepted just before
+ * the mark are picked up by re-reading chat_messages after marking until nothing is left.
+ *
+ * Metrics: chat.archive.rides and chat.archive.messages (archived per run, cumulative).
+ */
+@Service
+public class ChatArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatArchiveService.class);
+
+    private static final String FORMAT_JSON_GZIP = "json+gzip/1";
+    private static final Set<RideStatus> FINISHED = Set.of(RideStatus.COMPLETED, RideStatus.CANCELLED_BY_DRIVER);
+    private static final int MAX_ARCHIVE_BYTES = 12 * 1024 * 1024; // Below MongoDB's 16 MB document limit
+    private static final Comparator<ChatMessage> BY_TIMESTAMP =
+            Comparator.comparing(ChatMessage::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final RideRepository rideRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatArchiveRepository chatArchiveRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int afterDays;
+    private final int batchSize;
+
+    private final Counter archivedRides;
+    private final Counter archivedMessages;
+
+    public ChatArchiveService(RideRepository rideRepository,
+                              ChatMessageRepository chatMessageRepository,
+                              ChatArchiveRepository chatArchiveRepository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.archive.enabled:true}") boolean enabled,
+                              @Value("${chat.archive.after-days:30}") int afterDays,
+                              @Value("${chat.archive.batch-size:200}") int batchSize) {
+        this.rideRepository = rideRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatArchiveRepository = chatArchiveRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.archivedRides = Counter.builder("chat.archive.rides")
+                .description("Rides whose chat was moved to chat_archives").register(meterRegistry);
+        this.archivedMessages = Counter.builder("chat.archive.messages")
+                .description("Chat messages moved to chat_archives").register(meterRegistry);
+    }
+
+    /**
+     * Archives the chat of every ride that finished more than chat.archive.after-days ago.
+     * Rides are processed in batches; archived rides drop out of the query, so each batch is the first page.
+     */
+    @Scheduled(cron = "${chat.archive.cron:0 30 3 * * *}") // Nightly by default
+    public void archiveFinishedRides() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int rides = 0;
+        int messages = 0;
+        int skipped = 0;
+        while (true) {
+            List<Ride> batch = rideRepository.findByStatusInAndUpdatedAtBeforeAndChatArchivedAtIsNull(
+                    FINISHED, cutoff, PageRequest.of(0, batchSize, Sort.by("updatedAt")));
+            if (batch.isEmpty()) {
+                break;
+            }
+            int archivedInBatch = 0;
+            for (Ride ride : batch) {
+                try {
+                    messages += archiveRide(ride.getId());
+                    rides++;
+                    archivedInBatch++;
+                } catch (RuntimeException e) {
+                    skipped++;
+                    log.error("Failed to archive chat for ride {}: {}", ride.getId(), e.getMessage(), e);
+                }
+            }
+            if (archivedInBatch == 0) {
+                break; // Every ride in the batch failed; stop instead of fetching the same page forever
+            }
+        }
+        if (rides > 0 || skipped > 0) {
+            log.info("Chat archival: {} rides, {} messages archived ({} rides failed).", rides, messages, skipped);
+        }
+    }
+
+    /**
+     * Moves one ride's messages into its archive and deletes them from chat_messages.
+     *
+     * @return the number of messages moved.
+     */
+    public int archiveRide(String rideId) {
+        Map<String, ChatMessage> merged = null;
+        List<ChatMessage> live = chatMessageRepository.findByRideId(rideId, Sort.by(Sort.Direction.ASC, "timestamp"));
+        if (!live.isEmpty()) {
+            merged = saveArchive(rideId, null, live);
+        }
+        // Mark first, then delete: if we stop in between, the messages are in both places and reads dedupe by ID
+        rideRepository.markChatArchived(rideId, LocalDateTime.now());
+        int moved = 0;
+        // A message accepted just before the mark can land after the read above; read again until nothing is left
+        while (true) {
+            if (!live.isEmpty()) {
+                chatMessageRepository.deleteByIdIn(live.stream().map(ChatMessage::getId).toList());
+                moved += live.size();
+            }
+            live = chatMessageRepository.findByRideId(rideId, Sort.by(Sort.Direction.ASC, "timestamp"));
+            if (live.isEmpty()) {
+                break;
+            }
+            log.debug("{} chat messages for ride {} arrived while archiving; adding them.", live.size(), rideId);
+            merged = saveArchive(rideId, merged, live);
+        }
+        archivedRides.increment();
+        archivedMessages.increment(moved);
+        return moved;
+    }
+
+    /**
+     * Merges the messages into the ride's archive and saves it.
+     *
+     * @param previous the archive's messages by ID from the previous call, or null to start from the stored archive.
+     * @return the archive's messages by ID, for the next call.
+     */
+    private Map<String, ChatMessage> saveArchive(String rideId, Map<String, ChatMessage> previous, List<ChatMessage> live) {
+        Map<String, ChatMessage> merged = previous;
+        if (merged == null) {
+            // Merge with an existing archive (a previous run that didn't finish, or a late message)
+            Map<String, ChatMessage> stored = new LinkedHashMap<>();
+            chatArchiveRepository.findById(rideId).ifPresent(existing -> decode(existing).forEach(m -> stored.put(m.getId(), m)));
+            merged = stored;
+        }
+        for (ChatMessage message : live) {
+            merged.put(message.getId(), message);
+        }
+        List<ChatMessage> all = new ArrayList<>(merged.values());
+        all.sort(BY_TIMESTAMP);
+
+        byte[] compressed = encode(all);
+        if (compressed.length > MAX_ARCHIVE_BYTES) {
+            throw new IllegalStateException("Chat archive for ride " + rideId + " would be " + compressed.length + " bytes");
+        }
+        chatArchiveRepository.save(new ChatArchive(rideId, FORMAT_JSON_GZIP, compressed, all.size(),
+                all.get(0).getTimestamp(), all.get(all.size() - 1).getTimestamp(), LocalDateTime.now()));
+        return merged;
+    }
+
+    /**
+     * Archived messages of a ride, oldest first (empty if the ride has no archive).
+     */
+    public List<ChatMessage> archivedMessages(String rideId) {
+        return chatArchiveRepository.findById(rideId).map(this::decode).orElse(List.of());
+    }
+
+    private byte[] encode(List<ChatMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, messages);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compress chat archive", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<ChatMessage> decode(ChatArchive archive) {
+        if (!FORMAT_JSON_GZIP.equals(archive.getFormat())) {
+            throw new IllegalStateException("Unknown chat archive format '" + archive.getFormat() + "' for ride " + archive.getRideId());
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(archive.getMessages()))) {
+            return objectMapper.readValue(in, new TypeReference<List<ChatMessage>>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read chat archive for ride " + archive.getRideId(), e);
+        }
+    }
+}
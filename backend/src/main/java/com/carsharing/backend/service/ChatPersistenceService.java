@@ -0,0 +1,306 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.model.ChatMessage;
+import com.carsharing.backend.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Persists chat messages, either synchronously (default) or write-behind.
+ *
+ * In write-behind mode (chat.write-behind.enabled=true) a message gets its ID up front, the caller broadcasts
+ * it straight away, and a background thread inserts buffered messages in batches: every flush-interval-ms or
+ * as soon as batch-size messages are waiting. The buffer is bounded; when it is full, the message is saved
+ * synchronously instead, so the buffer never drops anything. On shutdown the buffer is drained before the
+ * Mongo client closes.
+ *
+ * A batch that still fails after MAX_FLUSH_ATTEMPTS inserts is handled by chat.write-behind.failed-batch-policy:
+ * REQUEUE (default) puts its messages back at the end of the buffer, so they are retried with the next batches
+ * and stay visible to history reads; DROP discards them. Either way, messages that cannot be kept (DROP, a full
+ * buffer, or a failure while shutting down) are logged with their IDs and counted in chat.persistence.failed.
+ *
+ * Metrics: chat.persistence.lag (age of the oldest unsaved message, ms), chat.persistence.pending,
+ * chat.persistence.flush (batch insert time), chat.persistence.failed (messages that could not be saved).
+ */
+@Service
+public class ChatPersistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatPersistenceService.class);
+
+    private static final int MAX_FLUSH_ATTEMPTS = 5;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private record Pending(ChatMessage message, long enqueuedNanos) {}
+
+    public enum FailedBatchPolicy { REQUEUE, DROP }
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final MongoTemplate mongoTemplate;
+    private final boolean writeBehind;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final long shutdownTimeoutMs;
+    private final FailedBatchPolicy failedBatchPolicy;
+
+    private final BlockingQueue<Pending> buffer;
+    private volatile List<Pending> inFlight = List.of(); // Batch being collected or inserted
+    private volatile boolean running = false;
+    private volatile Thread flusher;
+
+    private final Timer flushTimer;
+    private final Counter failed;
+
+    public ChatPersistenceService(ChatMessageRepository chatMessageRepository,
+                                  MongoTemplate mongoTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${chat.write-behind.enabled:false}") boolean writeBehind,
+                                  @Value("${chat.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+                                  @Value("${chat.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${chat.write-behind.buffer-capacity:10000}") int bufferCapacity,
+                                  @Value("${chat.write-behind.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                                  @Value("${chat.write-behind.failed-batch-policy:REQUEUE}") FailedBatchPolicy failedBatchPolicy) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.writeBehind = writeBehind;
+        this.flushIntervalMs = flushIntervalMs;
+        this.batchSize = batchSize;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.failedBatchPolicy = failedBatchPolicy;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+
+        Gauge.builder("chat.persistence.lag", this, ChatPersistenceService::lagMillis)
+                .description("Age of the oldest chat message not yet written to MongoDB (ms)").register(meterRegistry);
+        Gauge.builder("chat.persistence.pending", buffer, BlockingQueue::size)
+                .description("Chat messages buffered for write-behind").register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.persistence.flush")
+                .description("Time to insert one write-behind batch").register(meterRegistry);
+        this.failed = Counter.builder("chat.persistence.failed")
+                .description("Chat messages that could not be persisted after retries").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!writeBehind) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "chat-write-behind");
+        flusher.start();
+        log.info("Chat write-behind enabled (flush every {} ms or {} messages, buffer {}, failed batches: {}).",
+                flushIntervalMs, batchSize, buffer.remainingCapacity(), failedBatchPolicy);
+    }
+
+    /**
+     * Saves the message (synchronously, or by queueing it in write-behind mode) and returns it with its ID set.
+     */
+    public ChatMessage persist(ChatMessage message) {
+        if (!running) {
+            return chatMessageRepository.save(message);
+        }
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString()); // Same ID the broadcast and the stored document will carry
+        }
+        if (!buffer.offer(new Pending(message, System.nanoTime()))) {
+            log.warn("Chat write-behind buffer full; saving message {} synchronously.", message.getId());
+            return chatMessageRepository.save(message);
+        }
+        // Wake the flusher when it may be waiting for a first message or for a full batch; otherwise its
+        // deadline wakes it anyway
+        int buffered = buffer.size();
+        if (buffered == 1 || buffered >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return message;
+    }
+
+    /**
+     * Messages for the ride that are accepted but not yet in MongoDB, so history reads don't miss them.
+     * Read this before querying MongoDB: a message missing from both the buffer and the in-flight batch here
+     * has already been inserted.
+     */
+    public List<ChatMessage> unsavedMessages(String rideId) {
+        if (!writeBehind) {
+            return List.of();
+        }
+        // Buffer first, then inFlight: the flusher publishes a batch as in flight before taking its messages
+        // off the buffer, so a message is always found in one of the two (sometimes both, hence the map)
+        Map<String, ChatMessage> unsaved = new LinkedHashMap<>();
+        for (Pending pending : buffer) {
+            if (Objects.equals(pending.message().getRideId(), rideId)) {
+                unsaved.putIfAbsent(pending.message().getId(), pending.message());
+            }
+        }
+        for (Pending pending : inFlight) {
+            if (Objects.equals(pending.message().getRideId(), rideId)) {
+                unsaved.putIfAbsent(pending.message().getId(), pending.message());
+            }
+        }
+        return new ArrayList<>(unsaved.values());
+    }
+
+    private void runFlusher() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Pending first = buffer.peek();
+                if (first == null) {
+                    park(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                    continue;
+                }
+                // Fill the batch until it is full or the oldest message has waited flushIntervalMs
+                long deadline = first.enqueuedNanos() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                collect(batch);
+                long waitNanos;
+                while (batch.size() < batchSize && running && (waitNanos = deadline - System.nanoTime()) > 0) {
+                    park(waitNanos);
+                    collect(batch);
+                }
+                flush(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Copies messages from the head of the buffer into the batch, publishes the batch as in flight, and only then
+    // removes them from the buffer. The flusher is the buffer's only consumer, so the head it copied is the head
+    // it removes.
+    private void collect(List<Pending> batch) {
+        int collected = batch.size();
+        Iterator<Pending> head = buffer.iterator();
+        while (batch.size() < batchSize && head.hasNext()) {
+            batch.add(head.next());
+        }
+        if (batch.size() == collected) {
+            return;
+        }
+        inFlight = List.copyOf(batch);
+        for (int i = collected; i < batch.size(); i++) {
+            buffer.poll();
+        }
+    }
+
+    private void park(long nanos) {
+        LockSupport.parkNanos(this, nanos);
+        if (Thread.interrupted()) {
+            running = false; // Interrupted: stop waiting for new messages but keep draining what's buffered
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        inFlight = List.copyOf(batch);
+        List<ChatMessage> messages = batch.stream().map(Pending::message).toList();
+        try {
+            for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+                try {
+                    flushTimer.record(() -> insertUnordered(messages));
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt == MAX_FLUSH_ATTEMPTS) {
+                        handleFailedBatch(batch, e);
+                        return;
+                    }
+                    log.warn("Chat batch insert failed (attempt {}), retrying: {}", attempt, e.getMessage());
+                    sleepQuietly(100L << attempt);
+                }
+            }
+        } finally {
+            inFlight = List.of();
+        }
+    }
+
+    private void handleFailedBatch(List<Pending> batch, RuntimeException e) {
+        // Requeue only while running: during shutdown nothing would be left to retry them
+        List<Pending> lost = new ArrayList<>();
+        if (failedBatchPolicy == FailedBatchPolicy.REQUEUE && running) {
+            for (Pending pending : batch) {
+                if (!buffer.offer(pending)) {
+                    lost.add(pending);
+                }
+            }
+            log.warn("Chat batch insert failed {} times; requeued {} of {} messages: {}",
+                    MAX_FLUSH_ATTEMPTS, batch.size() - lost.size(), batch.size(), e.getMessage());
+        } else {
+            lost.addAll(batch);
+        }
+        if (!lost.isEmpty()) {
+            failed.increment(lost.size());
+            log.error("Dropping {} chat messages after {} failed insert attempts (IDs {}): {}", lost.size(), MAX_FLUSH_ATTEMPTS,
+                    lost.stream().map(pending -> pending.message().getId()).toList(), e.getMessage(), e);
+        }
+    }
+
+    // Unordered insertMany: one bad document doesn't block the rest, and retries skip already-inserted IDs
+    private void insertUnordered(List<ChatMessage> messages) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatMessage.class).insert(messages).execute();
+        } catch (BulkOperationException e) {
+            if (!e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY)) {
+                throw e;
+            }
+            // Only duplicates: those messages were inserted by an earlier attempt
+        }
+    }
+
+    private double lagMillis() {
+        List<Pending> batch = inFlight;
+        Pending oldest = !batch.isEmpty() ? batch.get(0) : buffer.peek();
+        return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedNanos());
+    }
+
+    @PreDestroy
+    public void drain() {
+        if (flusher == null) {
+            return;
+        }
+        running = false; // persist() falls back to synchronous saves from here on
+        LockSupport.unpark(flusher);
+        log.info("Draining {} buffered chat messages before shutdown.", buffer.size());
+        try {
+            flusher.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.error("Chat write-behind did not drain within {} ms; {} messages not persisted.", shutdownTimeoutMs, buffer.size());
+            return;
+        }
+        // Anything queued by a persist() that raced with shutdown, after the flusher's last check
+        List<Pending> leftovers = new ArrayList<>();
+        buffer.drainTo(leftovers);
+        if (!leftovers.isEmpty()) {
+            flush(leftovers);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.carsharing.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-sender token bucket for chat messages: chat.rate-limit.messages-per-second sustained, with bursts of up
+ * to chat.rate-limit.burst messages.
+ *
+ * Each user's bucket is a single AtomicLong holding the time at which the bucket would be full again
+ * (GCRA, the "virtual scheduling" form of a token bucket). tryAcquire() is one CAS loop over that long:
+ * no locks and, once the user's bucket exists, no allocation. Buckets that have refilled are removed by a
+ * periodic sweep, so the map only holds recently active senders.
+ *
+ * Metrics: chat.messages.throttled (rejected messages), chat.rate-limit.buckets (tracked senders).
+ */
+@Component
+public class ChatRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatRateLimiter.class);
+
+    private final boolean enabled;
+    private final long emissionIntervalNanos; // Time to earn back one token
+    private final long burstToleranceNanos;   // How far ahead of "now" the full-time may run before we reject
+
+    private final ConcurrentMap<String, AtomicLong> fullAtNanos = new ConcurrentHashMap<>();
+    private final Counter throttled;
+
+    public ChatRateLimiter(MeterRegistry meterRegistry,
+                           @Value("${chat.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${chat.rate-limit.messages-per-second:5}") double messagesPerSecond,
+                           @Value("${chat.rate-limit.burst:10}") int burst) {
+        if (messagesPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("chat.rate-limit.messages-per-second must be > 0 and chat.rate-limit.burst >= 1");
+        }
+        this.enabled = enabled;
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / messagesPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+
+        this.throttled = Counter.builder("chat.messages.throttled")
+                .description("Chat messages rejected by the per-sender rate limit").register(meterRegistry);
+        Gauge.builder("chat.rate-limit.buckets", fullAtNanos, ConcurrentMap::size)
+                .description("Senders with a partially used chat rate-limit bucket").register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the sender's bucket.
+     *
+     * @return true if the message may be sent, false if the sender is over the limit.
+     */
+    public boolean tryAcquire(String senderId) {
+        if (!enabled) {
+            return true;
+        }
+        AtomicLong bucket = fullAtNanos.get(senderId); // Plain get on the hot path; computeIfAbsent only for new senders
+        if (bucket == null) {
+            bucket = fullAtNanos.computeIfAbsent(senderId, id -> new AtomicLong(System.nanoTime())); // Starts full
+        }
+        long now = System.nanoTime();
+        while (true) {
+            long fullAt = bucket.get();
+            // A bucket that filled up in the past is simply full now
+            long base = fullAt - now < 0 ? now : fullAt;
+            if (base - now > burstToleranceNanos) {
+                throttled.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, base + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely; they behave exactly like a missing bucket.
+     * A sender racing with the sweep may at worst get one extra burst.
+     */
+    @Scheduled(fixedDelayString = "${chat.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int before = fullAtNanos.size();
+        fullAtNanos.values().removeIf(bucket -> bucket.get() - now <= 0);
+        if (log.isDebugEnabled()) {
+            log.debug("Chat rate limiter swept {} idle buckets ({} remaining).", before - fullAtNanos.size(), fullAtNanos.size());
+        }
+    }
+}
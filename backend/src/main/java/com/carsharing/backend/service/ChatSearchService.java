@@ -0,0 +1,106 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.dto.ChatSearchResultDTO;
+import com.carsharing.backend.model.ChatMessage;
+import com.carsharing.backend.model.User;
+import com.carsharing.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over chat_messages for moderation.
+ *
+ * Uses the text index on content: Mongo resolves the search terms through the index and applies the
+ * ride/sender/time filters to the matching documents only, so a search never scans the collection.
+ * Chats already moved to chat_archives (ChatArchiveService) are compressed and are not searched.
+ */
+@Service
+public class ChatSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatSearchService.class);
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+
+    public ChatSearchService(MongoTemplate mongoTemplate, UserRepository userRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Messages matching the search text (Mongo text search syntax: words, "exact phrases", -excluded),
+     * best matches first, then newest first. All filters except the text are optional.
+     *
+     * @throws IllegalArgumentException if the text is blank or the time range is inverted.
+     */
+    public Page<ChatSearchResultDTO> search(String text, String rideId, String senderId,
+                                            LocalDateTime from, LocalDateTime to, int page, int size) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search text is required.");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        log.info("Admin chat search '{}' (ride {}, sender {}, {} - {}), page {}", text, rideId, senderId, from, to, pageable.getPageNumber());
+
+        Query query = buildQuery(text, rideId, senderId, from, to)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp")) // Tie-break after the text score
+                .with(pageable);
+        List<ChatMessage> messages = mongoTemplate.find(query, ChatMessage.class);
+
+        // One batched lookup for the sender names on this page
+        Set<String> senderIds = messages.stream().map(ChatMessage::getSenderId).collect(Collectors.toSet());
+        Map<String, String> names = userRepository.findAllById(senderIds).stream()
+                .collect(Collectors.toMap(User::getId, User::getName, (a, b) -> a));
+        List<ChatSearchResultDTO> results = messages.stream()
+                .map(msg -> new ChatSearchResultDTO(msg.getId(), msg.getRideId(), msg.getSenderId(),
+                        names.getOrDefault(msg.getSenderId(), "Unknown User"), msg.getSenderRole(),
+                        msg.getContent(), msg.getTimestamp()))
+                .toList();
+
+        // Count only when the page doesn't already tell us the total (e.g. first page not full)
+        return PageableExecutionUtils.getPage(results, pageable,
+                () -> mongoTemplate.count(buildQuery(text, rideId, senderId, from, to), ChatMessage.class));
+    }
+
+    private Query buildQuery(String text, String rideId, String senderId, LocalDateTime from, LocalDateTime to) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore();
+        if (rideId != null && !rideId.isBlank()) {
+            query.addCriteria(Criteria.where("rideId").is(rideId));
+        }
+        if (senderId != null && !senderId.isBlank()) {
+            query.addCriteria(Criteria.where("senderId").is(senderId));
+        }
+        if (from != null || to != null) {
+            Criteria time = Criteria.where("timestamp");
+            if (from != null) {
+                time = time.gte(from);
+            }
+            if (to != null) {
+                time = time.lte(to);
+            }
+            query.addCriteria(time);
+        }
+        return query;
+    }
+}
@@ -32,6 +32,9 @@ public class DocumentService {
     @Autowired
     private UserRepository userRepository; // To get User ID from email
 
+    @Autowired
+    private DriverEligibilityService driverEligibilityService; // Cached "all required documents approved" check
+
     @Transactional
     public DocumentInfoDTO storeDocument(MultipartFile file, String documentType, String userEmail) {
         User user = userRepository.findByEmail(userEmail)
@@ -59,6 +62,7 @@ public class DocumentService {
 
         DocumentInfo savedDocInfo = documentInfoRepository.save(docInfo);
         log.info("Document metadata saved for user: {}, documentId: {}, file: {}", user.getId(), savedDocInfo.getId(), fileName);
+        driverEligibilityService.invalidate(user.getId());
 
         // Potentially update User entity if it tracks document status or has a list of doc IDs
         // user.getDocuments().add(savedDocInfo.getId());
@@ -93,6 +97,7 @@ public class DocumentService {
 
         fileStorageService.deleteFile(docInfo.getFilePath()); // Delete physical file
         documentInfoRepository.delete(docInfo); // Delete metadata
+        driverEligibilityService.invalidate(user.getId()); // May have been an approved required document
         log.info("Document {} and its file {} deleted successfully for user {}", documentId, docInfo.getFilePath(), userEmail);
     }
 
@@ -146,52 +151,41 @@ public DocumentInfoDTO updateDocumentStatus(String documentId, DocumentStatus ne
         // docInfo.setVerifiedAt(LocalDateTime.now()); // If you add this field
         // docInfo.setAdminVerifierId(admin.getId()); // If you add this field
         log.info("Document {} verified by admin {}", documentId, adminUserEmail);
+    }
 
-        // IMPORTANT: If document verification makes a DRIVER active, update the User status here!
-        User user = userRepository.findById(docInfo.getUserId())
-            .orElseThrow(() -> new ResourceNotFoundException("User associated with document not found: " + docInfo.getUserId()));
+    // Saved before the eligibility check below, so the check already counts this approval
+    DocumentInfo updatedDocInfo = documentInfoRepository.save(docInfo);
+
+    // Only required types (drivers.required-document-types) count. The cached answer is recomputed after commit;
+    // the approval decision below queries inside this transaction, so it sees the change just saved.
+    boolean requiredType = driverEligibilityService.isRequiredType(docInfo.getDocumentType());
+    if (requiredType) {
+        driverEligibilityService.refreshAfterCommit(docInfo.getUserId());
+    }
 
-        // This is a simplified check. You might need more sophisticated logic:
-        // e.g., check if ALL required documents for this user are VERIFIED.
-        if ("DRIVING_LICENSE".equals(docInfo.getDocumentType())) { // Example: If verifying DL makes them a driver
-             // Check if this is the final document needed to approve a driver
-             boolean allRequiredDocsVerified = checkAllRequiredDocsVerified(user.getId());
-             if (allRequiredDocsVerified) {
+    // IMPORTANT: If document verification makes a DRIVER active, update the User status here!
+    // Only approving one of the required types can complete the set.
+    if (newStatus == DocumentStatus.APPROVED && requiredType) {
+        if (driverEligibilityService.checkWithoutCache(docInfo.getUserId())) {
+            User user = userRepository.findById(docInfo.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("User associated with document not found: " + docInfo.getUserId()));
+            if (!"APPROVED".equals(user.getDriverStatus())) {
                 user.setDriverStatus("APPROVED"); // Or some enum
                 userRepository.save(user);
                 log.info("User {} driver status set to APPROVED after document {} verification.", user.getEmail(), documentId);
                 // Send notification to user about driver approval
-             } else {
-                log.info("Document {} for user {} verified, but not all required documents are verified yet.", documentId, user.getEmail());
-             }
+            }
+        } else {
+            log.info("Document {} for user {} verified, but not all required documents are verified yet.", documentId, docInfo.getUserId());
         }
     }
 
-    DocumentInfo updatedDocInfo = documentInfoRepository.save(docInfo);
     // Send notification to user about document status change (verified, rejected)
     // notificationService.sendDocumentStatusUpdate(docInfo.getUserId(), updatedDocInfo.getDocumentType(), newStatus, rejectionReason);
 
     return convertToDto(updatedDocInfo);
 }
 
- // Helper method - you'll need to implement this based on your business rules
- private boolean checkAllRequiredDocsVerified(String userId) {
-    // Example logic:
-    // 1. Define what document types are mandatory for a driver (e.g., "DRIVING_LICENSE", "VEHICLE_REGISTRATION")
-    List<String> requiredTypes = List.of("DRIVING_LICENSE", "VEHICLE_REGISTRATION"); // Make this configurable
-    List<DocumentInfo> userDocuments = documentInfoRepository.findByUserId(userId);
-
-    for (String requiredType : requiredTypes) {
-        boolean foundAndVerified = userDocuments.stream()
-            .anyMatch(doc -> requiredType.equals(doc.getDocumentType()) && doc.getStatus() == DocumentStatus.APPROVED);
-        if (!foundAndVerified) {
-            return false; // A required document is missing or not verified
-        }
-    }
-    return true; // All required documents are present and verified
-}
-
-
     private boolean isValidDocumentType(String documentType) {
         // Implement this if you have a fixed list of allowed document types
         // e.g., List.of("DRIVING_LICENSE", "VEHICLE_REGISTRATION", "INSURANCE_POLICY").contains(documentType.toUpperCase())
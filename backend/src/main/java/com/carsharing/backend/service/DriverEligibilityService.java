@@ -0,0 +1,206 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.repository.DocumentInfoRepository;
+import com.carsharing.backend.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether a user has every document required to drive (drivers.required-document-types) approved.
+ *
+ * The check is one aggregation on user_type_status_idx (DocumentInfoRepository.countApprovedDocumentTypes) and
+ * its result is cached per user, for the admin's pending-driver queue which asks again for every listed user on
+ * every load (misses of a whole page are filled by one aggregation). A status change of a required document drops
+ * the user's entry inside the write's transaction and recomputes it once the transaction has committed; uploads
+ * and deletions drop it. The TTL (drivers.eligibility-cache.ttl-ms) bounds staleness for changes made outside
+ * this instance.
+ *
+ * Metrics: drivers.eligibility.checks{result=hit|miss|refresh}, drivers.eligibility.cache.size.
+ */
+@Service
+public class DriverEligibilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(DriverEligibilityService.class);
+
+    // Per-user write generations, striped so the table stays fixed-size however many users exist
+    private static final int GENERATION_STRIPES = 256;
+
+    private record Entry(boolean eligible, long expiresAtNanos) {}
+
+    private final DocumentInfoRepository documentInfoRepository;
+    private final List<String> requiredTypes;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshes;
+
+    public DriverEligibilityService(DocumentInfoRepository documentInfoRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${drivers.required-document-types:DRIVING_LICENSE,VEHICLE_REGISTRATION}") List<String> requiredTypes,
+                                    @Value("${drivers.eligibility-cache.ttl-ms:600000}") long ttlMs,
+                                    @Value("${drivers.eligibility-cache.max-entries:10000}") int maxEntries) {
+        // Same normalization as DocumentService.storeDocument, so the property can be written either way
+        Set<String> normalized = requiredTypes.stream()
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .map(type -> type.toUpperCase().replace(" ", "_"))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("drivers.required-document-types must name at least one document type.");
+        }
+        this.documentInfoRepository = documentInfoRepository;
+        this.requiredTypes = List.copyOf(normalized);
+        this.ttlNanos = Duration.ofMillis(Math.max(ttlMs, 0)).toNanos();
+        this.maxEntries = maxEntries;
+
+        this.hits = Counter.builder("drivers.eligibility.checks").tag("result", "hit")
+                .description("Driver eligibility checks answered from the cache").register(meterRegistry);
+        this.misses = Counter.builder("drivers.eligibility.checks").tag("result", "miss")
+                .description("Driver eligibility checks that queried document_info").register(meterRegistry);
+        this.refreshes = Counter.builder("drivers.eligibility.checks").tag("result", "refresh")
+                .description("Driver eligibility recomputed after a write to one of the user's documents").register(meterRegistry);
+        Gauge.builder("drivers.eligibility.cache.size", entries, ConcurrentMap::size)
+                .description("Users with a cached driver eligibility result").register(meterRegistry);
+        log.info("Documents required for driver approval: {}", this.requiredTypes);
+    }
+
+    public boolean isRequiredType(String documentType) {
+        return documentType != null && requiredTypes.contains(documentType);
+    }
+
+    /**
+     * True if the user has at least one APPROVED document of every required type.
+     */
+    public boolean hasAllRequiredDocumentsApproved(String userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.eligible();
+        }
+
+        misses.increment();
+        int stripe = stripe(userId);
+        return load(userId, stripe, generations.get(stripe));
+    }
+
+    /**
+     * {@link #hasAllRequiredDocumentsApproved(String)} for a page of users, by user ID. Cached answers are served
+     * as they are; the misses are answered by one aggregation and cached.
+     */
+    public Map<String, Boolean> hasAllRequiredDocumentsApproved(Collection<String> userIds) {
+        Map<String, Boolean> eligible = new HashMap<>();
+        Map<String, Long> missGenerations = new HashMap<>();
+        long now = System.nanoTime();
+        for (String userId : userIds) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.expiresAtNanos() - now > 0) {
+                hits.increment();
+                eligible.put(userId, entry.eligible());
+            } else if (!missGenerations.containsKey(userId)) {
+                misses.increment();
+                missGenerations.put(userId, generations.get(stripe(userId))); // Before the query, as in load()
+            }
+        }
+        if (missGenerations.isEmpty()) {
+            return eligible;
+        }
+        Map<String, Integer> counts = documentInfoRepository.countApprovedDocumentTypes(missGenerations.keySet(), requiredTypes);
+        missGenerations.forEach((userId, generation) -> {
+            boolean answer = counts.getOrDefault(userId, 0) == requiredTypes.size();
+            store(userId, stripe(userId), generation, answer);
+            eligible.put(userId, answer);
+        });
+        return eligible;
+    }
+
+    /**
+     * Queries without the cache. Inside a transaction the query sees the transaction's own writes, which is what
+     * a decision made in that transaction needs; the answer isn't cached, as the transaction may still roll back.
+     */
+    public boolean checkWithoutCache(String userId) {
+        return documentInfoRepository.countApprovedDocumentTypes(userId, requiredTypes) == requiredTypes.size();
+    }
+
+    /**
+     * Call after saving a status change of one of the user's documents. Drops the cached result now and, once the
+     * write has committed (right away without a transaction), caches the recomputed one, so the next reads hit.
+     * Nothing computed before the commit is kept: a read racing the transaction sees the old state.
+     */
+    public void refreshAfterCommit(String userId) {
+        invalidate(userId);
+        AfterCommit.run(() -> {
+            refreshes.increment();
+            int stripe = stripe(userId);
+            // Bumped again, so an answer a concurrent read computed before the commit isn't stored over ours
+            long generation = generations.incrementAndGet(stripe);
+            entries.remove(userId);
+            load(userId, stripe, generation);
+        });
+    }
+
+    /**
+     * Drops the cached result for a user. Call after any other write to one of their documents.
+     */
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(userId));
+        entries.remove(userId);
+    }
+
+    /**
+     * Evicts expired entries so users who were checked once don't pin memory.
+     */
+    @Scheduled(fixedDelayString = "${drivers.eligibility-cache.ttl-ms:600000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+        int evicted = before - entries.size();
+        if (evicted > 0) {
+            log.debug("Driver eligibility cache evicted {} expired entries ({} remaining).", evicted, entries.size());
+        }
+    }
+
+    private boolean load(String userId, int stripe, long generation) {
+        boolean eligible = checkWithoutCache(userId);
+        store(userId, stripe, generation, eligible);
+        return eligible;
+    }
+
+    private void store(String userId, int stripe, long generation, boolean eligible) {
+        if (ttlNanos > 0 && (entries.size() < maxEntries || entries.containsKey(userId))) {
+            // If one of the user's documents changed while we were querying, don't cache the pre-change answer
+            entries.compute(userId, (k, existing) ->
+                    generations.get(stripe) != generation ? existing : new Entry(eligible, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    private static int stripe(String userId) {
+        return Math.floorMod(userId.hashCode(), GENERATION_STRIPES);
+    }
+}
@@ -3,6 +3,7 @@ package com.carsharing.backend.service;
 import com.carsharing.backend.exception.FileStorageException; // Ensure this custom exception exists
 import com.carsharing.backend.exception.ResourceNotFoundException;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +45,7 @@ public class FileStorageService {
         }
     }
 
+    @Timed(value = "files.store", description = "Storing an uploaded document on disk", histogram = true)
     public String storeFile(MultipartFile file, String userId, String documentType) {
         if (file.isEmpty()) {
             throw new FileStorageException("Failed to store empty file.");
@@ -0,0 +1,359 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.dto.IndexUsageDTO;
+import com.mongodb.client.MongoClient;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition.TextIndexDefinitionBuilder;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Every index the application relies on, declared in one place and created at startup.
+ *
+ * - Idempotent: an index that already exists under its name, or with the same keys under another name (e.g. one
+ *   created earlier by Spring Data from model annotations), is left alone. Nothing is ever dropped.
+ * - Runs before the web server starts (afterSingletonsInstantiated), so unique constraints are in place before the
+ *   first request. Builds on large collections are online in MongoDB 4.2+, but startup waits for them; progress
+ *   is logged every mongodb.indexes.progress-log-interval-ms from $currentOp.
+ * - A failing index (e.g. duplicate emails blocking the unique users.email index) is logged and skipped, so the
+ *   application still starts; fix the data and restart.
+ * - Usage: $indexStats per collection at GET /api/admin/indexes, and a daily log line (mongodb.indexes.unused-report.cron)
+ *   listing indexes with no operations since the server started counting, plus indexes not declared here.
+ *
+ * spring.data.mongodb.auto-index-creation is off: models carry no index annotations.
+ */
+@Component
+public class IndexRegistry implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexRegistry.class);
+
+    record DeclaredIndex(String collection, IndexDefinition definition) {
+        String name() {
+            return definition.getIndexOptions().getString("name");
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoClient mongoClient;
+    private final boolean enabled;
+    private final long progressLogIntervalMs;
+    private final long unusedMinAgeHours;
+    private final List<DeclaredIndex> declared = declarations();
+
+    public IndexRegistry(MongoTemplate mongoTemplate,
+                         MongoClient mongoClient,
+                         @Value("${mongodb.indexes.create-on-startup:true}") boolean enabled,
+                         @Value("${mongodb.indexes.progress-log-interval-ms:10000}") long progressLogIntervalMs,
+                         @Value("${mongodb.indexes.unused-min-age-hours:24}") long unusedMinAgeHours) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoClient = mongoClient;
+        this.enabled = enabled;
+        this.progressLogIntervalMs = progressLogIntervalMs;
+        this.unusedMinAgeHours = unusedMinAgeHours;
+    }
+
+    /**
+     * The index declarations, by collection. Field names are the stored ones (@Field), not the Java properties.
+     */
+    private static List<DeclaredIndex> declarations() {
+        List<DeclaredIndex> indexes = new ArrayList<>();
+
+        // --- users ---
+        // Login, JwtFilter and every "current user" lookup go through findByEmail; unique also closes the
+        // existsByEmail/save race on signup (AuthService turns the duplicate key error into 409)
+        indexes.add(new DeclaredIndex("users", new Index().on("email", Direction.ASC).unique().named("email_unique_idx")));
+        // Admin queue of driver applications; only the pending few are indexed
+        indexes.add(new DeclaredIndex("users", new Index().on("driverStatus", Direction.ASC)
+                .partial(PartialIndexFilter.of(Criteria.where("driverStatus").is(UserService.DRIVER_STATUS_PENDING)))
+                .named("driver_status_pending_idx")));
+
+        // --- roles ---
+        indexes.add(new DeclaredIndex("roles", new Index().on("name", Direction.ASC).unique().named("name_unique_idx")));
+
+        // --- rides ---
+        // A driver's own rides (findByDriverId), newest departure first
+        indexes.add(new DeclaredIndex("rides", new Index().on("driver_id", Direction.ASC).on("departure_time", Direction.DESC)
+                .named("driver_departure_idx")));
+        // Multikey index backing the route-aware search: one entry per route segment, then status and time
+        indexes.add(new DeclaredIndex("rides", new Index().on("route_segments", Direction.ASC).on("status", Direction.ASC)
+                .on("departure_time", Direction.ASC).named("route_segments_status_departure_idx")));
+        // All searchable rides (RideSearchIndex warm-up and consistency check)
+        indexes.add(new DeclaredIndex("rides", new Index().on("status", Direction.ASC).on("departure_time", Direction.ASC)
+                .named("status_departure_idx")));
+        // Finished rides whose chat hasn't been archived yet (ChatArchiveService)
+        indexes.add(new DeclaredIndex("rides", new Index().on("status", Direction.ASC).on("chat_archived_at", Direction.ASC)
+                .on("updated_at", Direction.ASC).named("status_chat_archived_updated_idx")));
+        // Radius search ($geoNear on origin_location, see RideRepositoryCustomImpl); names as Spring Data created them
+        indexes.add(new DeclaredIndex("rides", new GeospatialIndex("origin_location").typed(GeoSpatialIndexType.GEO_2DSPHERE)
+                .named("origin_location")));
+        indexes.add(new DeclaredIndex("rides", new GeospatialIndex("destination_location").typed(GeoSpatialIndexType.GEO_2DSPHERE)
+                .named("destination_location")));
+
+        // --- bookings ---
+        // Bookings of a ride by status (findByRideIdAndStatus(In), the one-active-booking check, ride cancellation)
+        indexes.add(new DeclaredIndex("bookings", new Index().on("ride_id", Direction.ASC).on("status", Direction.ASC)
+                .named("ride_status_idx")));
+        // A passenger's bookings (findByPassengerId), newest first
+        indexes.add(new DeclaredIndex("bookings", new Index().on("passenger_id", Direction.ASC).on("created_at", Direction.DESC)
+                .named("passenger_created_idx")));
+        // Driver inbox: pending requests across all of a driver's rides, newest first
+        indexes.add(new DeclaredIndex("bookings", new Index().on("driver_id", Direction.ASC).on("status", Direction.ASC)
+                .on("created_at", Direction.DESC).named("driver_status_created_idx")));
+
+        // --- chat_messages ---
+        // Chat history of a ride in time order (findByRideId sorted by timestamp, archival)
+        indexes.add(new DeclaredIndex("chat_messages", new Index().on("ride_id", Direction.ASC).on("timestamp", Direction.ASC)
+                .named("ride_id_timestamp_idx")));
+        // Full-text index for the admin chat search (ChatSearchService); name as Spring Data created it
+        indexes.add(new DeclaredIndex("chat_messages", new TextIndexDefinitionBuilder().onField("content")
+                .named("ChatMessage_TextIndex").build()));
+
+        // --- outbox ---
+        // The relay's query: unpublished events, oldest first
+        indexes.add(new DeclaredIndex("outbox", new Index().on("published_at", Direction.ASC).on("_id", Direction.ASC)
+                .named("published_at_id_idx")));
+        // Published events are kept a week for debugging (null published_at never expires)
+        indexes.add(new DeclaredIndex("outbox", new Index().on("published_at", Direction.ASC).expire(Duration.ofDays(7))
+                .named("published_at_ttl_idx")));
+        // A ride's unpublished events by sequence: the relay's check for events that belong before its batch
+        indexes.add(new DeclaredIndex("outbox", new Index().on("ride_id", Direction.ASC).on("published_at", Direction.ASC)
+                .on("sequence", Direction.ASC).named("ride_published_at_sequence_idx")));
+        // Per-ride sequence counters are dropped once a ride has had no event for 30 days (well past the events' TTL)
+        indexes.add(new DeclaredIndex("outbox_sequences", new Index().on("updated_at", Direction.ASC).expire(Duration.ofDays(30))
+                .named("updated_at_ttl_idx")));
+
+        // --- document_info ---
+        // A user's documents, and the per-type verification checks
+        indexes.add(new DeclaredIndex("document_info", new Index().on("userId", Direction.ASC).on("documentType", Direction.ASC)
+                .on("status", Direction.ASC).named("user_type_status_idx")));
+        // Admin review queue (findByStatus)
+        indexes.add(new DeclaredIndex("document_info", new Index().on("status", Direction.ASC).on("uploadedAt", Direction.ASC)
+                .named("status_uploaded_idx")));
+
+        return List.copyOf(indexes);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            log.info("Index creation on startup disabled (mongodb.indexes.create-on-startup=false).");
+            return;
+        }
+        try {
+            ensureIndexes();
+        } catch (Exception e) {
+            // Mongo unreachable at startup: the application still starts (as it would with missing indexes)
+            log.error("Index creation on startup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates every declared index that doesn't exist yet.
+     */
+    public void ensureIndexes() {
+        long start = System.currentTimeMillis();
+        int created = 0;
+        int failed = 0;
+        Map<String, List<DeclaredIndex>> byCollection = declared.stream()
+                .collect(Collectors.groupingBy(DeclaredIndex::collection));
+        ScheduledExecutorService progressLogger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "index-build-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Map.Entry<String, List<DeclaredIndex>> entry : byCollection.entrySet()) {
+                String collection = entry.getKey();
+                List<Document> existing = listIndexes(collection);
+                for (DeclaredIndex index : entry.getValue()) {
+                    Document keys = index.definition().getIndexKeys();
+                    Document sameName = existing.stream().filter(info -> index.name().equals(info.getString("name"))).findFirst().orElse(null);
+                    Document sameKeys = existing.stream().filter(info -> sameKeys(keys, info)).findFirst().orElse(null);
+                    if (sameName != null) {
+                        if (!sameKeys(keys, sameName) && !isTextIndex(sameName)) {
+                            log.warn("Index {}.{} exists with keys {} instead of the declared {}; drop it to have it recreated.",
+                                    collection, index.name(), sameName.get("key"), keys.toJson());
+                        }
+                        continue;
+                    }
+                    if (sameKeys != null) {
+                        log.info("Index {}.{} is already covered by existing index '{}' with the same keys.",
+                                collection, index.name(), sameKeys.getString("name"));
+                        continue;
+                    }
+                    if (create(collection, index, progressLogger)) {
+                        created++;
+                    } else {
+                        failed++;
+                    }
+                }
+            }
+        } finally {
+            progressLogger.shutdownNow();
+        }
+        log.info("Index registry: {} declared, {} created, {} failed ({} ms).",
+                declared.size(), created, failed, System.currentTimeMillis() - start);
+    }
+
+    private boolean create(String collection, DeclaredIndex index, ScheduledExecutorService progressLogger) {
+        log.info("Creating index {}.{} {} ...", collection, index.name(), index.definition().getIndexKeys().toJson());
+        long start = System.currentTimeMillis();
+        ScheduledFuture<?> progress = progressLogger.scheduleAtFixedRate(() -> logBuildProgress(collection, index.name()),
+                progressLogIntervalMs, progressLogIntervalMs, TimeUnit.MILLISECONDS);
+        try {
+            mongoTemplate.indexOps(collection).ensureIndex(index.definition());
+            log.info("Created index {}.{} in {} ms.", collection, index.name(), System.currentTimeMillis() - start);
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.error("Cannot create unique index {}.{}: the collection has duplicate values ({}). "
+                    + "Remove the duplicates and restart.", collection, index.name(), e.getMessage());
+        } catch (DataAccessException e) {
+            log.error("Failed to create index {}.{}: {}", collection, index.name(), e.getMessage(), e);
+        } finally {
+            progress.cancel(false);
+        }
+        return false;
+    }
+
+    // Index builds show up in $currentOp with a progress message (e.g. "Index Build: scanning collection") and done/total
+    private void logBuildProgress(String collection, String indexName) {
+        try {
+            Document currentOp = mongoClient.getDatabase("admin").runCommand(new Document("currentOp", 1)
+                    .append("command.createIndexes", collection));
+            for (Document op : currentOp.getList("inprog", Document.class, List.of())) {
+                Document progress = op.get("progress", Document.class);
+                if (progress != null) {
+                    log.info("Building index {}.{}: {} ({}/{})", collection, indexName, op.getString("msg"),
+                            progress.get("done"), progress.get("total"));
+                } else {
+                    log.info("Building index {}.{}: {}", collection, indexName, op.getString("msg"));
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Can't read index build progress (currentOp): {}", e.getMessage());
+        }
+    }
+
+    // --- Usage ---
+
+    /**
+     * Index usage ($indexStats) of every collection in the database.
+     * @param unusedOnly Only indexes reported unused (see IndexUsageDTO.unused).
+     */
+    public List<IndexUsageDTO> indexUsage(boolean unusedOnly) {
+        Set<String> declaredNames = declared.stream().map(index -> index.collection() + "." + index.name()).collect(Collectors.toSet());
+        LocalDateTime countingCutoff = LocalDateTime.now().minusHours(unusedMinAgeHours);
+        List<IndexUsageDTO> usage = new ArrayList<>();
+        for (String collection : mongoTemplate.getCollectionNames()) {
+            if (collection.startsWith("system.")) {
+                continue;
+            }
+            Map<String, Document> specs = listIndexes(collection).stream()
+                    .collect(Collectors.toMap(info -> info.getString("name"), info -> info, (a, b) -> a));
+            List<Document> stats = mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document()))).into(new ArrayList<>());
+            for (Document stat : stats) {
+                String name = stat.getString("name");
+                Document spec = specs.getOrDefault(name, new Document());
+                Document accesses = stat.get("accesses", Document.class);
+                long ops = accesses == null ? 0 : ((Number) accesses.get("ops")).longValue();
+                Date since = accesses == null ? null : accesses.getDate("since");
+
+                IndexUsageDTO dto = new IndexUsageDTO();
+                dto.setCollection(collection);
+                dto.setName(name);
+                dto.setKeys(stat.get("key", Document.class).toJson());
+                dto.setDeclared(name.equals("_id_") || declaredNames.contains(collection + "." + name));
+                dto.setOperations(ops);
+                dto.setCountingSince(since == null ? null : LocalDateTime.ofInstant(since.toInstant(), ZoneId.systemDefault()));
+                // Unique and TTL indexes do their job without being read; _id_ can't be dropped
+                boolean constraint = Boolean.TRUE.equals(spec.getBoolean("unique")) || spec.containsKey("expireAfterSeconds");
+                dto.setUnused(ops == 0 && !name.equals("_id_") && !constraint
+                        && dto.getCountingSince() != null && dto.getCountingSince().isBefore(countingCutoff));
+                if (!unusedOnly || dto.isUnused()) {
+                    usage.add(dto);
+                }
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Logs unused and undeclared indexes (each costs memory and slows every write to its collection).
+     */
+    @Scheduled(cron = "${mongodb.indexes.unused-report.cron:0 0 4 * * *}")
+    public void logUnusedIndexes() {
+        try {
+            List<IndexUsageDTO> usage = indexUsage(false);
+            usage.stream().filter(IndexUsageDTO::isUnused).forEach(index ->
+                    log.warn("Index {}.{} {} has not been used since {}{}.", index.getCollection(), index.getName(), index.getKeys(),
+                            index.getCountingSince(), index.isDeclared() ? "" : " and is not declared in IndexRegistry"));
+            usage.stream().filter(index -> !index.isDeclared() && !index.isUnused()).forEach(index ->
+                    log.info("Index {}.{} {} is not declared in IndexRegistry ({} operations since {}).", index.getCollection(),
+                            index.getName(), index.getKeys(), index.getOperations(), index.getCountingSince()));
+        } catch (Exception e) {
+            log.error("Failed to collect index usage: {}", e.getMessage(), e);
+        }
+    }
+
+    // --- Helpers ---
+
+    private List<Document> listIndexes(String collection) {
+        return mongoTemplate.getCollection(collection).listIndexes().into(new ArrayList<>());
+    }
+
+    // Same fields in the same order and directions; the server may report 1 as 1.0 for indexes created by other tools
+    private static boolean sameKeys(Document declaredKeys, Document info) {
+        Document key = info.get("key", Document.class);
+        if (key == null || key.size() != declaredKeys.size()) {
+            return false;
+        }
+        List<Map.Entry<String, Object>> actual = new ArrayList<>(key.entrySet());
+        List<Map.Entry<String, Object>> expected = new ArrayList<>(declaredKeys.entrySet());
+        for (int i = 0; i < expected.size(); i++) {
+            Object expectedValue = expected.get(i).getValue();
+            Object actualValue = actual.get(i).getValue();
+            boolean sameValue = expectedValue instanceof Number e && actualValue instanceof Number a
+                    ? e.doubleValue() == a.doubleValue()
+                    : expectedValue.equals(actualValue);
+            if (!expected.get(i).getKey().equals(actual.get(i).getKey()) || !sameValue) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Text indexes are stored as {_fts: "text", _ftsx: 1}, not with the declared field names
+    private static boolean isTextIndex(Document info) {
+        Document key = info.get("key", Document.class);
+        return key != null && "text".equals(key.get("_fts"));
+    }
+}
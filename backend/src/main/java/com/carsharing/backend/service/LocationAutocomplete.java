@@ -0,0 +1,170 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.dto.LocationSuggestionDTO;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.repository.RideRepository;
+import com.carsharing.backend.repository.RideRepositoryCustom.LocationCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix autocomplete over the cities and states that appear in rides, ranked by ride count.
+ *
+ * Two tries (cities, states) keyed by the folded name from {@link LocationNormalizer}. Every trie node keeps
+ * its own top-{@value #MAX_SUGGESTIONS} list, so a lookup is one walk down the prefix and a list copy:
+ * no Mongo access and no subtree scan on the request path. Counts are seeded from MongoDB at startup and
+ * incremented as rides are created or re-routed; writes are serialized, reads are lock-free.
+ */
+@Component
+public class LocationAutocomplete {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationAutocomplete.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Location> BY_RANK = Comparator
+            .comparingLong((Location location) -> location.count).reversed()
+            .thenComparing(location -> location.key);
+
+    // One city or state; count and paths are only written under the write lock
+    private static final class Location {
+        final String key;
+        final String city;
+        final String state;
+        final Set<String> paths = new HashSet<>(); // Canonical key plus every spelling seen, e.g. "ny" and "new york"
+        volatile long count;
+
+        Location(String key, String city, String state) {
+            this.key = key;
+            this.city = city;
+            this.state = state;
+        }
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new ConcurrentHashMap<>();
+        volatile List<Location> top = List.of(); // Immutable, replaced on write
+    }
+
+    private final RideRepository rideRepository;
+    private final LocationNormalizer locationNormalizer;
+
+    private final Node cityRoot = new Node();
+    private final Node stateRoot = new Node();
+    private final Map<String, Location> cities = new HashMap<>(); // Guarded by this
+    private final Map<String, Location> states = new HashMap<>(); // Guarded by this
+
+    public LocationAutocomplete(RideRepository rideRepository, LocationNormalizer locationNormalizer) {
+        this.rideRepository = rideRepository;
+        this.locationNormalizer = locationNormalizer;
+    }
+
+    /**
+     * Seeds the tries with per-location ride counts aggregated in MongoDB.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        List<LocationCount> counts = rideRepository.countRidesByLocation();
+        for (LocationCount count : counts) {
+            add(count.city(), count.state(), count.count());
+        }
+        log.info("Location autocomplete loaded {} cities and {} states ({} ms).",
+                cities.size(), states.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Counts a newly created ride towards its departure and destination.
+     */
+    public void recordRide(Ride ride) {
+        recordLocation(ride.getDepartureCity(), ride.getDepartureState());
+        recordLocation(ride.getDestinationCity(), ride.getDestinationState());
+    }
+
+    /**
+     * Counts one more ride at the given place (e.g. when an update moves a ride's departure or destination).
+     */
+    public void recordLocation(String city, String state) {
+        add(city, state, 1);
+    }
+
+    public List<LocationSuggestionDTO> suggestCities(String prefix, int limit) {
+        return suggest(cityRoot, prefix, limit);
+    }
+
+    public List<LocationSuggestionDTO> suggestStates(String prefix, int limit) {
+        return suggest(stateRoot, prefix, limit);
+    }
+
+    private List<LocationSuggestionDTO> suggest(Node root, String prefix, int limit) {
+        String folded = locationNormalizer.foldPrefix(prefix);
+        Node node = root;
+        for (int i = 0; i < folded.length() && node != null; i++) {
+            node = node.children.get(folded.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<Location> top = node.top;
+        List<LocationSuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, top.size()));
+        for (int i = 0; i < top.size() && i < limit; i++) {
+            Location location = top.get(i);
+            suggestions.add(new LocationSuggestionDTO(location.city, location.state, location.count));
+        }
+        return suggestions;
+    }
+
+    private synchronized void add(String city, String state, long rides) {
+        if (city == null || city.isBlank() || state == null || state.isBlank() || rides <= 0) {
+            return;
+        }
+        String stateKey = locationNormalizer.normalizeState(state);
+        // Keeps the first spelling seen for display; later variants only add to the count
+        Location stateEntry = states.computeIfAbsent(stateKey, k -> new Location(k, null, state.trim()));
+        increment(stateRoot, stateEntry, rides, stateKey, locationNormalizer.foldPrefix(state));
+
+        String cityName = locationNormalizer.normalizeCity(city);
+        String cityKey = stateKey + '|' + cityName;
+        Location cityEntry = cities.computeIfAbsent(cityKey, k -> new Location(k, city.trim(), state.trim()));
+        increment(cityRoot, cityEntry, rides, cityName, locationNormalizer.foldPrefix(city));
+    }
+
+    // Bumps the count and re-ranks the entry in the top list of every node on each of its paths
+    private void increment(Node root, Location location, long rides, String... spellings) {
+        location.count += rides;
+        for (String spelling : spellings) {
+            location.paths.add(spelling);
+        }
+        updateTop(root, location);
+        for (String path : location.paths) {
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.computeIfAbsent(path.charAt(i), c -> new Node());
+                updateTop(node, location);
+            }
+        }
+    }
+
+    private static void updateTop(Node node, Location location) {
+        List<Location> top = new ArrayList<>(node.top);
+        top.remove(location);
+        top.add(location);
+        top.sort(BY_RANK);
+        if (top.size() > MAX_SUGGESTIONS) {
+            top = top.subList(0, MAX_SUGGESTIONS);
+        }
+        node.top = List.copyOf(top);
+    }
+}
@@ -0,0 +1,115 @@
+package com.carsharing.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Turns user-typed city and state names into canonical search keys, so "New York", " new  york ",
+ * "NYC" and "New York City" all produce the same key.
+ *
+ * Normalization: strip accents, case-fold, drop dots/apostrophes, turn other punctuation into spaces,
+ * collapse whitespace, then apply the alias dictionary (rides.location-aliases, loaded once at startup).
+ * Each dictionary line is {@code type,alias,canonical} where type is {@code city} or {@code state}.
+ */
+@Component
+public class LocationNormalizer {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationNormalizer.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern DOTS_AND_APOSTROPHES = Pattern.compile("[.'\u2019]"); // "D.C." -> "dc", "O'Fallon" -> "ofallon"
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Bump when fold() changes, so stored keys are rebuilt even if the dictionary didn't change
+    private static final String KEY_FORMAT = "1";
+
+    private final Resource aliasResource;
+    private final Map<String, String> cityAliases = new HashMap<>();
+    private final Map<String, String> stateAliases = new HashMap<>();
+    private String dictionaryVersion = KEY_FORMAT + "-none";
+
+    public LocationNormalizer(@Value("${rides.location-aliases:classpath:location-aliases.csv}") Resource aliasResource) {
+        this.aliasResource = aliasResource;
+    }
+
+    @PostConstruct
+    public void loadAliases() {
+        if (!aliasResource.exists()) {
+            log.warn("Location alias dictionary {} not found; only case/whitespace folding will be applied.", aliasResource);
+            return;
+        }
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(aliasResource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.trim().startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",", -1);
+                if (parts.length != 3) {
+                    throw new IllegalStateException("Invalid alias entry at line " + lineNumber + " of " + aliasResource + ": " + line);
+                }
+                Map<String, String> target = switch (fold(parts[0])) {
+                    case "city" -> cityAliases;
+                    case "state" -> stateAliases;
+                    default -> throw new IllegalStateException("Unknown alias type '" + parts[0].trim() + "' at line " + lineNumber + " of " + aliasResource);
+                };
+                target.put(fold(parts[1]), fold(parts[2]));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read location alias dictionary " + aliasResource, e);
+        }
+        // Stored on each ride with its route keys, so rides keyed with an older dictionary get re-keyed at startup
+        dictionaryVersion = KEY_FORMAT + "-" + Integer.toHexString((new TreeMap<>(cityAliases) + "|" + new TreeMap<>(stateAliases)).hashCode());
+        log.info("Loaded {} city and {} state aliases from {} (version {}).",
+                cityAliases.size(), stateAliases.size(), aliasResource, dictionaryVersion);
+    }
+
+    public String normalizeCity(String city) {
+        String folded = fold(city);
+        return cityAliases.getOrDefault(folded, folded);
+    }
+
+    public String normalizeState(String state) {
+        String folded = fold(state);
+        return stateAliases.getOrDefault(folded, folded);
+    }
+
+    /**
+     * Folds a partially typed name (for prefix matching) without applying aliases, which only match whole names.
+     */
+    public String foldPrefix(String prefix) {
+        return fold(prefix);
+    }
+
+    /**
+     * Identifies the alias dictionary that keys were built with. Changes whenever the dictionary content changes.
+     */
+    public String getDictionaryVersion() {
+        return dictionaryVersion;
+    }
+
+    private static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        stripped = DOTS_AND_APOSTROPHES.matcher(stripped).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
@@ -3,7 +3,10 @@ package com.carsharing.backend.service;
 import com.carsharing.backend.dto.RideDTO;
 import com.carsharing.backend.model.BookingStatus; // Make sure this is the enum
 import com.carsharing.backend.model.DocumentStatus;
+import com.carsharing.backend.util.StompDestinations;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,10 +20,20 @@ public class NotificationService {
 
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
     private final SimpMessagingTemplate messagingTemplate;
+    private final ObservationRegistry observationRegistry;
 
     @Autowired
-    public NotificationService(SimpMessagingTemplate messagingTemplate) {
+    public NotificationService(SimpMessagingTemplate messagingTemplate, ObservationRegistry observationRegistry) {
         this.messagingTemplate = messagingTemplate;
+        this.observationRegistry = observationRegistry;
+    }
+
+    // Each send is a span (and a notifications.send timer); the message carries its trace context (TraceHeaders)
+    private void send(String type, Runnable send) {
+        Observation.createNotStarted("notifications.send", observationRegistry)
+                .contextualName("notify " + type)
+                .lowCardinalityKeyValue("notification.type", type)
+                .observe(send);
     }
 
     /**
@@ -31,9 +44,9 @@ public class NotificationService {
             log.warn("Attempted to send ride status update with null ride DTO or ID.");
             return;
         }
-        String destination = "/topic/ride/" + rideDto.getId() + "/status";
+        String destination = StompDestinations.rideStatus(rideDto.getId());
         log.info("Sending ride status update to {}: Ride ID {}, Status {}", destination, rideDto.getId(), rideDto.getStatus());
-        messagingTemplate.convertAndSend(destination, rideDto); // Send the RideDTO
+        send("RIDE_STATUS_UPDATE", () -> messagingTemplate.convertAndSend(destination, rideDto)); // Send the RideDTO
     }
 
     /**
@@ -58,7 +71,7 @@ public class NotificationService {
                 "message", message
         );
         log.info("Sending booking update to user '{}' via {}: {}", userPrincipal, userQueue, payload);
-        messagingTemplate.convertAndSendToUser(userPrincipal, userQueue, payload);
+        send("BOOKING_STATUS_UPDATE", () -> messagingTemplate.convertAndSendToUser(userPrincipal, userQueue, payload));
     }
 
     /**
@@ -86,7 +99,7 @@ public class NotificationService {
                 "message", message
         );
         log.info("Sending new booking request notification to driver '{}': {}", driverPrincipal, payload);
-        messagingTemplate.convertAndSendToUser(driverPrincipal, userQueue, payload);
+        send("NEW_BOOKING_REQUEST", () -> messagingTemplate.convertAndSendToUser(driverPrincipal, userQueue, payload));
     }
 
     /**
@@ -114,7 +127,7 @@ public class NotificationService {
                 "message", message
         );
         log.info("Sending passenger cancellation notification to driver '{}': {}", driverPrincipal, payload);
-        messagingTemplate.convertAndSendToUser(driverPrincipal, userQueue, payload);
+        send("PASSENGER_BOOKING_CANCELLATION", () -> messagingTemplate.convertAndSendToUser(driverPrincipal, userQueue, payload));
     }
 
     // You can add more specific notification methods as needed, e.g., for chat notifications,
@@ -137,6 +150,6 @@ public class NotificationService {
                 "message", message
         );
         log.info("Sending document status update to user '{}': {}", userPrincipal, payload);
-        messagingTemplate.convertAndSendToUser(userPrincipal, userQueue, payload);
+        send("DOCUMENT_STATUS_UPDATE", () -> messagingTemplate.convertAndSendToUser(userPrincipal, userQueue, payload));
     }
 }
\ No newline at end of file
@@ -0,0 +1,328 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.model.BookingStatus;
+import com.carsharing.backend.model.OutboxEvent;
+import com.carsharing.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.ReceiverContext;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes outbox events through NotificationService, in batches.
+ *
+ * Only one node relays at a time: each run first takes or renews a lease on the outbox_relay_lock document
+ * (findAndModify, outbox.relay.lease-ms), and a node that doesn't hold it does nothing. If the leader dies, another
+ * node takes over once its lease has expired. outbox.relay.enabled=false keeps a node out of the election.
+ *
+ * Every outbox.relay.interval-ms the leader reads the oldest unpublished events (by _id, roughly insertion order),
+ * publishes each ride's events in sequence order (OutboxService assigns a per-ride sequence; ObjectIds come from
+ * the writing node's clock), and marks the published ones with a single update. Earlier events of a ride that
+ * fall outside the batch are fetched and published first. When an event fails, the ride's later events in that
+ * batch are held back, so a ride's notifications never arrive out of order; an event that fails
+ * outbox.relay.max-attempts times is given up on (logged and counted) to unblock its ride.
+ *
+ * Delivery is at-least-once: a crash between publishing and marking re-publishes those events, as can a leader
+ * that stalls past its lease while another node takes over.
+ *
+ * Metrics: outbox.lag (age of the oldest unpublished event, seconds), outbox.published, outbox.failed,
+ * outbox.delivery (time from write to publish).
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String LOCK_COLLECTION = "outbox_relay_lock";
+    private static final String LOCK_ID = "outbox-relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final ObservationRegistry observationRegistry;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseMs;
+    private final String nodeId;
+
+    private volatile LocalDateTime oldestPending; // Null when the outbox is drained (or another node is leader)
+    private volatile boolean leader;
+    private long leaseValidUntilNanos; // Local deadline for publishing under the current lease
+
+    private final Counter published;
+    private final Counter failed;
+    private final Timer delivery;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       MongoTemplate mongoTemplate,
+                       NotificationService notificationService,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       ObservationRegistry observationRegistry,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.lease-ms:10000}") long leaseMs,
+                       @Value("${outbox.relay.node-id:}") String nodeId) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+        this.observationRegistry = observationRegistry;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseMs = leaseMs;
+        // Unique per process: two nodes on one host must not share the lease
+        this.nodeId = (nodeId.isBlank() ? hostName() : nodeId) + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        Gauge.builder("outbox.lag", this, OutboxRelay::lagSeconds)
+                .description("Age of the oldest unpublished outbox event (s)").register(meterRegistry);
+        this.published = Counter.builder("outbox.published")
+                .description("Outbox events published").register(meterRegistry);
+        this.failed = Counter.builder("outbox.failed")
+                .description("Outbox events given up on after max attempts").register(meterRegistry);
+        this.delivery = Timer.builder("outbox.delivery")
+                .description("Time from writing an outbox event to publishing it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!holdLease()) {
+                oldestPending = null; // The leader reports the lag
+                return;
+            }
+            int handled;
+            do {
+                handled = relayBatch();
+            } while (handled >= batchSize && holdLease()); // A full batch means there may be more waiting
+            oldestPending = outboxEventRepository.findFirstByPublishedAtIsNullOrderByIdAsc()
+                    .map(OutboxEvent::getCreatedAt).orElse(null);
+        } catch (RuntimeException e) {
+            log.error("Outbox relay run failed: {}", e.getMessage(), e); // Retried on the next run
+        }
+    }
+
+    /**
+     * Takes the relay lease, or renews it if this node already holds it. Returns false if another node does.
+     */
+    private boolean holdLease() {
+        Date now = new Date();
+        Query query = new Query(new Criteria().andOperator(Criteria.where("_id").is(LOCK_ID),
+                new Criteria().orOperator(Criteria.where("owner").is(nodeId), Criteria.where("lease_until").lt(now))));
+        Update update = new Update().set("owner", nodeId).set("lease_until", new Date(now.getTime() + leaseMs));
+        boolean held;
+        long requestedNanos = System.nanoTime();
+        try {
+            held = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, LOCK_COLLECTION) != null;
+        } catch (DuplicateKeyException e) {
+            held = false; // The lock document exists and another node's lease hasn't expired: the upsert collided
+        }
+        if (held) {
+            // Measured from before the request, and without trusting that our clock agrees with the other nodes'
+            leaseValidUntilNanos = requestedNanos + TimeUnit.MILLISECONDS.toNanos(leaseMs / 2);
+        }
+        if (held != leader) {
+            log.info(held ? "Outbox relay lease acquired by this node ({})." : "Outbox relay lease held by another node; {} stands by.", nodeId);
+            leader = held;
+        }
+        return held;
+    }
+
+    /**
+     * Publishes one batch; returns how many events were published or given up on.
+     */
+    private int relayBatch() {
+        List<OutboxEvent> batch = inRideOrder(outboxEventRepository.findByPublishedAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize)));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<String> done = new ArrayList<>(batch.size());
+        Set<String> blockedRides = new HashSet<>(); // Rides with an earlier event that failed in this batch
+        for (OutboxEvent event : batch) {
+            if (System.nanoTime() - leaseValidUntilNanos > 0) {
+                break; // The lease may have passed to another node; stop publishing and mark what we sent
+            }
+            if (event.getRideId() != null && blockedRides.contains(event.getRideId())) {
+                continue; // Keep per-ride order: wait for the earlier event to go through
+            }
+            try {
+                traced(event).observe(() -> publish(event));
+                done.add(event.getId());
+                published.increment();
+                if (event.getCreatedAt() != null) {
+                    delivery.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+                }
+            } catch (RuntimeException e) {
+                if (recordFailure(event, e)) {
+                    done.add(event.getId()); // Given up on; don't block the ride forever
+                } else if (event.getRideId() != null) {
+                    blockedRides.add(event.getRideId());
+                }
+            }
+        }
+        if (!done.isEmpty()) {
+            mongoTemplate.updateMulti(new Query(Criteria.where("id").in(done)),
+                    new Update().set("publishedAt", LocalDateTime.now()), OutboxEvent.class);
+        }
+        return done.size();
+    }
+
+    /**
+     * Puts the batch in publishing order: rides in order of their oldest event in the batch, each ride's events
+     * by sequence, preceded by any of its unpublished events that sort before the batch's (written by a node
+     * whose clock is behind, so their ObjectIds fall after the batch).
+     */
+    private List<OutboxEvent> inRideOrder(List<OutboxEvent> batch) {
+        Map<String, List<OutboxEvent>> byRide = new LinkedHashMap<>();
+        List<OutboxEvent> ordered = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            if (event.getRideId() == null) {
+                ordered.add(event); // No ordering key
+            } else {
+                byRide.computeIfAbsent(event.getRideId(), ride -> new ArrayList<>()).add(event);
+            }
+        }
+        Set<String> ridesWithEarlierEvents = ridesWithEarlierEvents(byRide);
+        Set<String> seen = new HashSet<>(batch.stream().map(OutboxEvent::getId).toList());
+        for (Map.Entry<String, List<OutboxEvent>> ride : byRide.entrySet()) {
+            List<OutboxEvent> events = ride.getValue();
+            events.sort(Comparator.comparingLong(OutboxEvent::getSequence).thenComparing(OutboxEvent::getId));
+            if (ridesWithEarlierEvents.contains(ride.getKey())) {
+                outboxEventRepository.findByRideIdAndPublishedAtIsNullAndSequenceLessThanOrderBySequenceAsc(
+                                ride.getKey(), events.get(0).getSequence()).stream()
+                        .filter(event -> seen.add(event.getId()))
+                        .forEach(ordered::add);
+            }
+            ordered.addAll(events);
+        }
+        return ordered;
+    }
+
+    // One aggregation for the whole batch: the rides whose lowest unpublished sequence is below the batch's lowest
+    private Set<String> ridesWithEarlierEvents(Map<String, List<OutboxEvent>> byRide) {
+        if (byRide.isEmpty()) {
+            return Set.of();
+        }
+        Map<String, Long> lowestInBatch = new HashMap<>();
+        byRide.forEach((ride, events) -> lowestInBatch.put(ride,
+                events.stream().mapToLong(OutboxEvent::getSequence).min().orElse(0)));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("ride_id").in(byRide.keySet()).and("published_at").is(null)),
+                Aggregation.group("ride_id").min("sequence").as("lowest"));
+        Set<String> rides = new HashSet<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, "outbox", Document.class)) {
+            String ride = result.getString("_id");
+            Number lowest = result.get("lowest", Number.class);
+            if (lowest != null && lowest.longValue() < lowestInBatch.getOrDefault(ride, Long.MIN_VALUE)) {
+                rides.add(ride);
+            }
+        }
+        return rides;
+    }
+
+    private void publish(OutboxEvent event) {
+        Map<String, Object> payload = event.getPayload();
+        switch (event.getType()) {
+            case RIDE_STATUS_UPDATE -> notificationService.notifyRideStatusUpdate(objectMapper.convertValue(payload, RideDTO.class));
+            case BOOKING_STATUS_UPDATE -> notificationService.sendBookingUpdateNotification(event.getRecipient(),
+                    string(payload, "bookingId"), BookingStatus.valueOf(string(payload, "status")), string(payload, "message"));
+            case BOOKING_REQUEST -> notificationService.sendBookingRequestNotification(event.getRecipient(),
+                    string(payload, "bookingId"), string(payload, "passengerName"),
+                    string(payload, "departureCity"), string(payload, "destinationCity"));
+            case PASSENGER_CANCELLATION -> notificationService.sendPassengerCancellationNotification(event.getRecipient(),
+                    string(payload, "bookingId"), string(payload, "passengerName"),
+                    string(payload, "departureCity"), string(payload, "destinationCity"));
+        }
+    }
+
+    // A span for the delivery, in the trace of the request that wrote the event (so its time in the outbox shows)
+    private Observation traced(OutboxEvent event) {
+        ReceiverContext<OutboxEvent> context = new ReceiverContext<>(
+                (carrier, key) -> carrier.getTraceHeaders() != null ? carrier.getTraceHeaders().get(key) : null);
+        context.setCarrier(event);
+        return Observation.createNotStarted("outbox.publish", () -> context, observationRegistry)
+                .contextualName("outbox publish " + event.getType())
+                .lowCardinalityKeyValue("outbox.event.type", String.valueOf(event.getType()))
+                .highCardinalityKeyValue("ride.id", String.valueOf(event.getRideId()));
+    }
+
+    // Returns true if the event has used up its attempts and should be dropped
+    private boolean recordFailure(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        boolean giveUp = attempts >= maxAttempts;
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(event.getId())),
+                new Update().set("attempts", attempts).set("lastError", String.valueOf(e.getMessage())), OutboxEvent.class);
+        if (giveUp) {
+            failed.increment();
+            log.error("Giving up on outbox event {} ({}) for ride {} after {} attempts: {}",
+                    event.getId(), event.getType(), event.getRideId(), attempts, e.getMessage(), e);
+        } else {
+            log.warn("Outbox event {} ({}) for ride {} failed (attempt {}): {}",
+                    event.getId(), event.getType(), event.getRideId(), attempts, e.getMessage());
+        }
+        return giveUp;
+    }
+
+    private double lagSeconds() {
+        LocalDateTime oldest = oldestPending;
+        return oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+
+    private static String string(Map<String, Object> payload, String key) {
+        return payload != null ? Objects.toString(payload.get(key), null) : null;
+    }
+}
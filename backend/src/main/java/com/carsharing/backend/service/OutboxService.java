@@ -0,0 +1,108 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.config.TraceHeaders;
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.model.BookingStatus;
+import com.carsharing.backend.model.OutboxEvent;
+import com.carsharing.backend.model.OutboxEventType;
+import com.carsharing.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records notifications in the outbox instead of sending them. Call these from the same @Transactional
+ * service method as the state change; OutboxRelay publishes the events through NotificationService.
+ *
+ * Method names and arguments mirror NotificationService; the rideId is the ordering key, and each event gets the
+ * ride's next sequence number (outbox_sequences), which the relay publishes in.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    static final String SEQUENCE_COLLECTION = "outbox_sequences";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final TraceHeaders traceHeaders;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                         TraceHeaders traceHeaders) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.traceHeaders = traceHeaders;
+    }
+
+    public void notifyRideStatusUpdate(RideDTO rideDto) {
+        // Stored as the DTO's JSON shape, so the relay can rebuild the RideDTO exactly
+        Map<String, Object> payload = objectMapper.convertValue(rideDto, new TypeReference<Map<String, Object>>() {});
+        append(rideDto.getId(), OutboxEventType.RIDE_STATUS_UPDATE, null, payload);
+    }
+
+    public void sendBookingUpdateNotification(String rideId, String userPrincipal, String bookingId, BookingStatus status, String message) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("bookingId", bookingId);
+        payload.put("status", status != null ? status.name() : null);
+        payload.put("message", message);
+        append(rideId, OutboxEventType.BOOKING_STATUS_UPDATE, userPrincipal, payload);
+    }
+
+    public void sendBookingRequestNotification(String rideId, String driverPrincipal, String bookingId, String passengerName,
+                                               String rideDepartureCity, String rideDestinationCity) {
+        append(rideId, OutboxEventType.BOOKING_REQUEST, driverPrincipal,
+                bookingPayload(bookingId, passengerName, rideDepartureCity, rideDestinationCity));
+    }
+
+    public void sendPassengerCancellationNotification(String rideId, String driverPrincipal, String bookingId, String passengerName,
+                                                      String rideDepartureCity, String rideDestinationCity) {
+        append(rideId, OutboxEventType.PASSENGER_CANCELLATION, driverPrincipal,
+                bookingPayload(bookingId, passengerName, rideDepartureCity, rideDestinationCity));
+    }
+
+    private static Map<String, Object> bookingPayload(String bookingId, String passengerName,
+                                                      String rideDepartureCity, String rideDestinationCity) {
+        Map<String, Object> payload = new HashMap<>(); // HashMap: some values may be null
+        payload.put("bookingId", bookingId);
+        payload.put("passengerName", passengerName);
+        payload.put("departureCity", rideDepartureCity);
+        payload.put("destinationCity", rideDestinationCity);
+        return payload;
+    }
+
+    private void append(String rideId, OutboxEventType type, String recipient, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent(null, rideId, nextSequence(rideId), type, recipient, payload, LocalDateTime.now(),
+                null, 0, null, traceHeaders.current());
+        OutboxEvent saved = outboxEventRepository.save(event);
+        log.debug("Outbox event {} ({}) recorded for ride {}", saved.getId(), type, rideId);
+    }
+
+    // Per-ride counter, incremented in the same transaction as the event. Concurrent writers for one ride conflict on
+    // the counter document: the later one aborts with TransientTransactionError and is re-run by TransactionRetryAspect,
+    // so sequence order is commit order (ObjectIds come from each node's clock)
+    private long nextSequence(String rideId) {
+        if (rideId == null) {
+            return 0;
+        }
+        Document counter = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(rideId)),
+                new Update().inc("seq", 1L).set("updated_at", new Date()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, SEQUENCE_COLLECTION);
+        return counter.get("seq", Number.class).longValue();
+    }
+}
@@ -0,0 +1,52 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.model.Ride;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps the ride caches of this node (RideSearchIndex, RideSearchCache) in step with ride writes made elsewhere.
+ * Local writes already update both directly; seeing them again here is harmless.
+ */
+@Component
+public class RideInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RideInvalidationListener.class);
+
+    private final RideSearchIndex rideSearchIndex;
+    private final RideSearchCache rideSearchCache;
+    private final MongoTemplate mongoTemplate;
+
+    public RideInvalidationListener(RideSearchIndex rideSearchIndex, RideSearchCache rideSearchCache, MongoTemplate mongoTemplate) {
+        this.rideSearchIndex = rideSearchIndex;
+        this.rideSearchCache = rideSearchCache;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.concerns("rides")) {
+            return;
+        }
+        if (event.isAll()) {
+            log.info("Reloading ride caches after a cross-node invalidation gap.");
+            rideSearchCache.invalidateAll();
+            rideSearchIndex.checkConsistency(); // Repairs the index against MongoDB
+            return;
+        }
+        if (event.fullDocument() == null) {
+            // Deleted: drop it and any cached searches on its old route
+            rideSearchCache.invalidateSegments(rideSearchIndex.remove(event.documentId()));
+            return;
+        }
+        Ride ride = mongoTemplate.getConverter().read(Ride.class, event.fullDocument());
+        List<String> previousSegments = rideSearchIndex.applyRemoteChange(ride);
+        rideSearchCache.invalidateSegments(previousSegments); // Old route, in case it changed
+        rideSearchCache.invalidate(ride);
+    }
+}
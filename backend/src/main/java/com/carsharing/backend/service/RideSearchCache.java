@@ -0,0 +1,222 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.util.RouteKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of ride search results, keyed by normalized route segment and departure time bucket.
+ *
+ * A bucket holds every match departing after the bucket start; a lookup filters that list down to the
+ * requested time, so all searches within the same bucket share one entry. Writes that touch a ride
+ * (create, update, cancel, start/complete, seat changes) invalidate every segment on its route right away.
+ * The TTL (rides.search-cache.ttl-ms) bounds how stale a result can be for writes this node doesn't see,
+ * e.g. from another instance or directly in MongoDB.
+ *
+ * Metrics: rides.search.cache.requests{result=hit|miss}, rides.search.cache.hit.ratio,
+ * rides.search.cache.invalidations, rides.search.cache.size.
+ */
+@Component
+public class RideSearchCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RideSearchCache.class);
+
+    // Per-segment write generations, striped so the table stays fixed-size however many segments exist
+    private static final int GENERATION_STRIPES = 1024;
+
+    private record Entry(List<RideDTO> rides, long expiresAtNanos) {}
+
+    private final LocationNormalizer locationNormalizer;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long bucketMinutes;
+    private final int maxEntries;
+
+    // segment key -> bucket start (epoch minute) -> results
+    private final ConcurrentMap<String, ConcurrentMap<Long, Entry>> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public RideSearchCache(LocationNormalizer locationNormalizer,
+                           MeterRegistry meterRegistry,
+                           @Value("${rides.search-cache.enabled:true}") boolean enabled,
+                           @Value("${rides.search-cache.ttl-ms:30000}") long ttlMs,
+                           @Value("${rides.search-cache.time-bucket-minutes:15}") long bucketMinutes,
+                           @Value("${rides.search-cache.max-entries:10000}") int maxEntries) {
+        if (bucketMinutes <= 0) {
+            throw new IllegalArgumentException("rides.search-cache.time-bucket-minutes must be positive.");
+        }
+        this.locationNormalizer = locationNormalizer;
+        this.enabled = enabled && ttlMs > 0;
+        this.ttlNanos = Duration.ofMillis(ttlMs).toNanos();
+        this.bucketMinutes = bucketMinutes;
+        this.maxEntries = maxEntries;
+
+        this.hits = Counter.builder("rides.search.cache.requests").tag("result", "hit")
+                .description("Ride searches served from the result cache").register(meterRegistry);
+        this.misses = Counter.builder("rides.search.cache.requests").tag("result", "miss")
+                .description("Ride searches that had to query the index or MongoDB").register(meterRegistry);
+        this.invalidations = Counter.builder("rides.search.cache.invalidations")
+                .description("Route segments whose cached results were dropped by a ride write").register(meterRegistry);
+        Gauge.builder("rides.search.cache.size", size, AtomicInteger::get)
+                .description("Cached (segment, time bucket) result lists").register(meterRegistry);
+        Gauge.builder("rides.search.cache.hit.ratio", this, RideSearchCache::hitRatio)
+                .description("Share of ride searches served from the cache since startup").register(meterRegistry);
+    }
+
+    /**
+     * Returns the rides on the given route departing strictly after {@code after}, using the cached bucket if
+     * it is still fresh. On a miss, {@code loader} is called with the bucket start and must return every
+     * searchable ride departing after that time, ordered by departure time.
+     */
+    public List<RideDTO> search(String departureCity, String departureState, String destinationCity, String destinationState,
+                                LocalDateTime after, Function<LocalDateTime, List<RideDTO>> loader) {
+        if (!enabled) {
+            return loader.apply(after);
+        }
+        String segment = RouteKeys.segmentKey(departureCity, departureState, destinationCity, destinationState, locationNormalizer);
+        LocalDateTime bucketStart = bucketStart(after);
+        long bucket = bucketStart.toEpochSecond(ZoneOffset.UTC) / 60;
+
+        ConcurrentMap<Long, Entry> buckets = entries.get(segment);
+        Entry entry = buckets != null ? buckets.get(bucket) : null;
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+            hits.increment();
+            return filterAfter(entry.rides(), after);
+        }
+
+        misses.increment();
+        int stripe = stripe(segment);
+        long generation = generations.get(stripe);
+        List<RideDTO> loaded = loader.apply(bucketStart);
+        if (size.get() < maxEntries) {
+            Entry fresh = new Entry(List.copyOf(loaded), System.nanoTime() + ttlNanos);
+            // Atomic per segment with invalidation/eviction. Invalidation bumps the generation before removing,
+            // so if a write touched this segment while we were loading, the pre-write result is not cached.
+            entries.compute(segment, (k, existing) -> {
+                if (generations.get(stripe) != generation) {
+                    return existing;
+                }
+                ConcurrentMap<Long, Entry> target = existing != null ? existing : new ConcurrentHashMap<>();
+                if (target.put(bucket, fresh) == null) {
+                    size.incrementAndGet();
+                }
+                return target;
+            });
+        }
+        return filterAfter(loaded, after);
+    }
+
+    /**
+     * Drops cached results for every segment on the ride's current route. Call after saving any change to a ride
+     * that can affect search results; for route changes also call {@link #invalidateSegments(Collection)} with the old route.
+     */
+    public void invalidate(Ride ride) {
+        if (enabled && ride != null) {
+            invalidateSegments(RouteKeys.segmentKeys(ride, locationNormalizer));
+        }
+    }
+
+    public void invalidateSegments(Collection<String> segmentKeys) {
+        if (!enabled || segmentKeys == null) {
+            return;
+        }
+        for (String segment : segmentKeys) {
+            generations.incrementAndGet(stripe(segment));
+            ConcurrentMap<Long, Entry> removed = entries.remove(segment);
+            if (removed != null) {
+                size.addAndGet(-removed.size());
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result (e.g. when cross-node invalidation has fallen behind and we can't tell what changed).
+     */
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i); // Loads in flight must not re-cache pre-flush results
+        }
+        for (String segment : entries.keySet()) {
+            ConcurrentMap<Long, Entry> removed = entries.remove(segment);
+            if (removed != null) {
+                size.addAndGet(-removed.size());
+            }
+        }
+        log.info("Ride search cache flushed.");
+    }
+
+    /**
+     * Evicts expired entries so idle corridors don't pin memory until the next write.
+     */
+    @Scheduled(fixedDelayString = "${rides.search-cache.ttl-ms:30000}")
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        AtomicInteger evicted = new AtomicInteger();
+        for (String segment : entries.keySet()) {
+            entries.computeIfPresent(segment, (k, buckets) -> {
+                int before = buckets.size();
+                buckets.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+                int removed = before - buckets.size();
+                size.addAndGet(-removed);
+                evicted.addAndGet(removed);
+                return buckets.isEmpty() ? null : buckets;
+            });
+        }
+        if (evicted.get() > 0) {
+            log.debug("Ride search cache evicted {} expired entries ({} remaining).", evicted.get(), size.get());
+        }
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private LocalDateTime bucketStart(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        long minuteOfDay = minute.getHour() * 60L + minute.getMinute();
+        return minute.minusMinutes(minuteOfDay % bucketMinutes);
+    }
+
+    private static List<RideDTO> filterAfter(List<RideDTO> rides, LocalDateTime after) {
+        return rides.stream()
+                .filter(ride -> ride.getDepartureTime() != null && ride.getDepartureTime().isAfter(after))
+                .toList();
+    }
+
+    private static int stripe(String segment) {
+        return Math.floorMod(segment.hashCode(), GENERATION_STRIPES);
+    }
+}
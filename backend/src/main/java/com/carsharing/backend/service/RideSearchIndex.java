@@ -0,0 +1,314 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.model.RideStatus;
+import com.carsharing.backend.repository.RideRepository;
+import com.carsharing.backend.util.RouteKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of searchable rides (SCHEDULED with at least one free seat).
+ * Rides are grouped by route segment (see {@link RouteKeys}): a ride is listed under its corridor
+ * and under every "earlier stop -> later stop" pair on its route. Each segment is a skip list ordered
+ * by departure time, so a search is a map lookup plus a tail scan from the requested time floor.
+ *
+ * RideService and BookingService call {@link #upsert(Ride)} after every write that can change
+ * a ride's route, time, status or seat count; writes from other nodes arrive through
+ * {@link #applyRemoteChange(Ride)} when change stream invalidation is on. Until the warm-up load has finished,
+ * {@link #isReady()} is false and searches fall back to Mongo.
+ */
+@Component
+public class RideSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RideSearchIndex.class);
+
+    // Orders a segment by departure time, then by ID so rides with the same time don't collide
+    private static final Comparator<Ride> BY_DEPARTURE = Comparator
+            .comparing(Ride::getDepartureTime)
+            .thenComparing(Ride::getId);
+    private static final String MAX_ID = "\uffff";
+
+    private final RideRepository rideRepository;
+    private final LocationNormalizer locationNormalizer;
+    private final boolean enabled;
+
+    private final ConcurrentMap<String, ConcurrentSkipListSet<Ride>> segments = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IndexedRide> ridesById = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    public RideSearchIndex(RideRepository rideRepository,
+                           LocationNormalizer locationNormalizer,
+                           @Value("${rides.search-index.enabled:true}") boolean enabled) {
+        this.rideRepository = rideRepository;
+        this.locationNormalizer = locationNormalizer;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // Indexed snapshot plus the segment keys it was filed under, so removal doesn't recompute them
+    private record IndexedRide(Ride ride, List<String> segmentKeys) {}
+
+    private static boolean isSearchable(Ride ride) {
+        return ride.getStatus() == RideStatus.SCHEDULED
+                && ride.getAvailableSeats() > 0
+                && ride.getDepartureTime() != null;
+    }
+
+    /**
+     * Returns searchable rides whose route passes the departure point and later the destination point,
+     * departing strictly after {@code after}, ordered by departure time.
+     * The returned entities are the indexed snapshots and must not be modified.
+     */
+    public List<Ride> search(String departureCity, String destinationCity, String departureState, String destinationState, LocalDateTime after) {
+        ConcurrentSkipListSet<Ride> corridor = segments.get(
+                RouteKeys.segmentKey(departureCity, departureState, destinationCity, destinationState, locationNormalizer));
+        if (corridor == null) {
+            return List.of();
+        }
+        // Probe sorts after every real ride departing exactly at the floor, so the tail is strictly "after"
+        Ride floor = new Ride();
+        floor.setDepartureTime(after);
+        floor.setId(MAX_ID);
+        return new ArrayList<>(corridor.tailSet(floor, false));
+    }
+
+    /**
+     * Reflects the saved state of a ride in the index: (re)inserts it if it is searchable, removes it otherwise.
+     * Callers pass the entity returned by the repository save and must not mutate it afterwards.
+     */
+    public void upsert(Ride ride) {
+        if (!enabled || ride == null || ride.getId() == null) {
+            return;
+        }
+        ridesById.compute(ride.getId(), (id, previous) -> reindex(previous, ride));
+    }
+
+    /**
+     * Removes a ride from the index.
+     *
+     * @return the segment keys it was filed under (empty if it wasn't indexed).
+     */
+    public List<String> remove(String rideId) {
+        if (rideId == null) {
+            return List.of();
+        }
+        List<List<String>> previousKeys = new ArrayList<>(1);
+        ridesById.computeIfPresent(rideId, (id, previous) -> {
+            previousKeys.add(previous.segmentKeys());
+            removeFromSegments(previous);
+            return null;
+        });
+        return previousKeys.isEmpty() ? List.of() : previousKeys.get(0);
+    }
+
+    /**
+     * Applies a ride change made elsewhere (another node, seen through the change stream). Unlike
+     * {@link #upsert(Ride)} it keeps the indexed snapshot if that one is newer than the incoming ride.
+     *
+     * @return the segment keys the ride was filed under before the change (empty if it wasn't indexed).
+     */
+    public List<String> applyRemoteChange(Ride ride) {
+        if (!enabled || ride == null || ride.getId() == null) {
+            return List.of();
+        }
+        List<List<String>> previousKeys = new ArrayList<>(1);
+        ridesById.compute(ride.getId(), (id, previous) -> {
+            if (previous != null) {
+                previousKeys.add(previous.segmentKeys());
+                if (isNewer(previous.ride(), ride.getUpdatedAt())) {
+                    return previous; // A local write already indexed a later version
+                }
+            }
+            return reindex(previous, ride);
+        });
+        return previousKeys.isEmpty() ? List.of() : previousKeys.get(0);
+    }
+
+    // Runs inside ridesById.compute for the ride's ID: unfiles the previous snapshot, files the new one if searchable
+    private IndexedRide reindex(IndexedRide previous, Ride ride) {
+        if (previous != null) {
+            removeFromSegments(previous);
+        }
+        if (!isSearchable(ride)) {
+            return null;
+        }
+        List<String> keys = RouteKeys.segmentKeys(ride, locationNormalizer);
+        for (String key : keys) {
+            addToSegment(key, ride);
+        }
+        return new IndexedRide(ride, keys);
+    }
+
+    private void removeFromSegments(IndexedRide indexed) {
+        for (String key : indexed.segmentKeys()) {
+            removeFromSegment(key, indexed.ride());
+        }
+    }
+
+    // Adding and removing are atomic per segment key: ridesById.compute only locks the ride's own ID, so without
+    // this another ride could be added to a segment that is being unlinked because it just became empty.
+    private void addToSegment(String key, Ride ride) {
+        segments.compute(key, (k, segment) -> {
+            ConcurrentSkipListSet<Ride> target = segment != null ? segment : new ConcurrentSkipListSet<>(BY_DEPARTURE);
+            target.add(ride);
+            return target;
+        });
+    }
+
+    private void removeFromSegment(String key, Ride ride) {
+        segments.computeIfPresent(key, (k, segment) -> {
+            segment.remove(ride);
+            return segment.isEmpty() ? null : segment;
+        });
+    }
+
+    /**
+     * Warm-up loader: fills the index with every SCHEDULED ride that still has seats and has not departed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            log.info("Ride search index disabled; searches will go to MongoDB.");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Ride> rides = loadSearchableRides();
+        rides.forEach(this::upsert);
+        ready = true;
+        log.info("Ride search index warmed up with {} rides in {} route segments ({} ms).",
+                ridesById.size(), segments.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Consistency checker: compares the index with MongoDB, repairs any drift and prunes departed rides, then
+     * verifies that the segment lists agree with ridesById.
+     * Drift should only come from writes that bypass RideService/BookingService (or from other nodes).
+     */
+    @Scheduled(fixedDelayString = "${rides.search-index.consistency-check-interval-ms:300000}",
+               initialDelayString = "${rides.search-index.consistency-check-interval-ms:300000}")
+    public void checkConsistency() {
+        if (!isReady()) {
+            return;
+        }
+        LocalDateTime checkStart = LocalDateTime.now();
+        Map<String, Ride> expected = new HashMap<>();
+        for (Ride ride : loadSearchableRides()) {
+            expected.put(ride.getId(), ride);
+        }
+
+        int missing = 0, stale = 0, extra = 0;
+        for (Ride ride : expected.values()) {
+            IndexedRide indexed = ridesById.get(ride.getId());
+            if (indexed == null) {
+                missing++;
+                upsert(ride);
+            } else if (!sameSearchState(indexed, ride) && !isNewer(indexed.ride(), ride.getUpdatedAt())) {
+                stale++;
+                upsert(ride);
+            }
+        }
+        for (String rideId : new ArrayList<>(ridesById.keySet())) {
+            IndexedRide indexed = ridesById.get(rideId);
+            if (!expected.containsKey(rideId) && indexed != null && !isNewer(indexed.ride(), checkStart)) {
+                extra++; // Departed, cancelled, full, or deleted outside the services
+                remove(rideId);
+            }
+        }
+
+        int[] membership = checkSegmentMembership();
+        int unfiled = membership[0], orphaned = membership[1];
+
+        if (missing + stale + extra + unfiled + orphaned > 0) {
+            log.warn("Ride search index drift repaired: {} missing, {} stale, {} extra, {} unfiled, {} orphaned (now {} rides).",
+                    missing, stale, extra, unfiled, orphaned, ridesById.size());
+        } else {
+            log.debug("Ride search index consistent with MongoDB ({} rides).", ridesById.size());
+        }
+    }
+
+    /**
+     * Checks that every indexed ride is reachable from each of its segments and that segments hold no ride the
+     * index doesn't file there. Each repair runs under the ride's ridesById lock, like upsert/remove.
+     *
+     * @return {unfiled, orphaned}: indexed rides missing from one of their segments (re-filed), and segment entries
+     * without a matching ridesById entry (dropped).
+     */
+    private int[] checkSegmentMembership() {
+        int unfiled = 0, orphaned = 0;
+        for (IndexedRide indexed : new ArrayList<>(ridesById.values())) {
+            boolean filed = indexed.segmentKeys().stream().allMatch(key -> {
+                ConcurrentSkipListSet<Ride> segment = segments.get(key);
+                return segment != null && segment.contains(indexed.ride());
+            });
+            if (!filed) {
+                unfiled++;
+                ridesById.computeIfPresent(indexed.ride().getId(), (id, current) -> reindex(current, current.ride()));
+            }
+        }
+        for (Map.Entry<String, ConcurrentSkipListSet<Ride>> entry : segments.entrySet()) {
+            String key = entry.getKey();
+            for (Ride ride : entry.getValue()) {
+                IndexedRide indexed = ridesById.get(ride.getId());
+                if (indexed != null && indexed.segmentKeys().contains(key)) {
+                    continue;
+                }
+                boolean[] dropped = {false};
+                ridesById.compute(ride.getId(), (id, current) -> {
+                    // Re-check under the lock: an upsert may have filed the ride here in the meantime
+                    if (current == null || !current.segmentKeys().contains(key)) {
+                        removeFromSegment(key, ride);
+                        dropped[0] = true;
+                    }
+                    return current;
+                });
+                if (dropped[0]) {
+                    orphaned++;
+                }
+            }
+        }
+        return new int[] {unfiled, orphaned};
+    }
+
+    private List<Ride> loadSearchableRides() {
+        return rideRepository.findByStatusAndDepartureTimeAfterAndAvailableSeatsGreaterThan(
+                RideStatus.SCHEDULED, LocalDateTime.now(), 0);
+    }
+
+    // True if the indexed snapshot was written after the given time (i.e. a concurrent write beat the check)
+    private static boolean isNewer(Ride indexed, LocalDateTime than) {
+        return indexed.getUpdatedAt() != null && than != null && indexed.getUpdatedAt().isAfter(than);
+    }
+
+    private boolean sameSearchState(IndexedRide indexed, Ride b) {
+        Ride a = indexed.ride();
+        return Objects.equals(indexed.segmentKeys(), RouteKeys.segmentKeys(b, locationNormalizer))
+                && Objects.equals(a.getDepartureTime(), b.getDepartureTime())
+                && a.getAvailableSeats() == b.getAvailableSeats()
+                && a.getStatus() == b.getStatus()
+                && Objects.equals(a.getUpdatedAt(), b.getUpdatedAt());
+    }
+
+    public int size() {
+        return ridesById.size();
+    }
+}
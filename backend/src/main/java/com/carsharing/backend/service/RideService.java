@@ -2,6 +2,7 @@ package com.carsharing.backend.service;
 
 import com.carsharing.backend.dto.RideCreationDTO;
 import com.carsharing.backend.dto.RideDTO;
+import com.carsharing.backend.dto.RideSummaryDTO;
 import com.carsharing.backend.dto.RideUpdateDTO;
 import com.carsharing.backend.exception.IllegalRideStateException;
 import com.carsharing.backend.exception.ResourceNotFoundException;
@@ -10,40 +11,65 @@ import com.carsharing.backend.model.*; // Assuming User, Ride, RideStatus, Booki
 import com.carsharing.backend.repository.BookingRepository; // If used directly, or via BookingService
 import com.carsharing.backend.repository.RideRepository;
 import com.carsharing.backend.repository.UserRepository;
+import com.carsharing.backend.util.AfterCommit;
 import com.carsharing.backend.util.AuthenticationUtil; // Assuming this utility class exists
+import com.carsharing.backend.util.RouteKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class RideService {
 
     private static final Logger log = LoggerFactory.getLogger(RideService.class);
 
+    public static final double MAX_SEARCH_RADIUS_KM = 200;
+    public static final int MAX_NEARBY_RESULTS = 100;
+    private static final int ROUTE_KEYS_BACKFILL_BATCH = 500;
+
     private final RideRepository rideRepository;
     private final UserRepository userRepository;
     private final BookingService bookingService; // For cascading cancellations and passenger notifications
-    private final NotificationService notificationService; // For ride status updates
+    private final OutboxService outboxService; // Ride status updates go through the outbox (published by OutboxRelay)
+    private final RideSearchIndex rideSearchIndex; // In-memory route segment index used by searchRides
+    private final LocationNormalizer locationNormalizer; // Case/alias folding for city and state search keys
+    private final RideSearchCache rideSearchCache; // Short-TTL search result cache, invalidated on ride writes
+    private final LocationAutocomplete locationAutocomplete; // City/state suggestions ranked by ride count
     // private final AuthenticationUtil authenticationUtil; // For getting current user
 
     @Autowired
     public RideService(RideRepository rideRepository,
                        UserRepository userRepository,
                        BookingService bookingService,
-                       NotificationService notificationService) {
+                       OutboxService outboxService,
+                       RideSearchIndex rideSearchIndex,
+                       LocationNormalizer locationNormalizer,
+                       RideSearchCache rideSearchCache,
+                       LocationAutocomplete locationAutocomplete) {
         this.rideRepository = rideRepository;
         this.userRepository = userRepository;
         this.bookingService = bookingService;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.rideSearchIndex = rideSearchIndex;
+        this.locationNormalizer = locationNormalizer;
+        this.rideSearchCache = rideSearchCache;
+        this.locationAutocomplete = locationAutocomplete;
     }
 
     @Transactional
@@ -69,6 +95,8 @@ public class RideService {
         newRide.setDestinationState(rideCreationDTO.getDestinationState());
         newRide.setDepartureAddress(rideCreationDTO.getDepartureAddress());
         newRide.setDestinationAddress(rideCreationDTO.getDestinationAddress());
+        newRide.setOriginLocation(toPoint(rideCreationDTO.getDepartureLatitude(), rideCreationDTO.getDepartureLongitude()));
+        newRide.setDestinationLocation(toPoint(rideCreationDTO.getDestinationLatitude(), rideCreationDTO.getDestinationLongitude()));
         newRide.setDepartureTime(rideCreationDTO.getDepartureTime());
         // Estimated arrival time if provided in DTO
         if (rideCreationDTO.getEstimatedArrivalTime() != null) {
@@ -83,8 +111,14 @@ public class RideService {
         newRide.setPetsAllowed(rideCreationDTO.isPetsAllowed());
         newRide.setRideNotes(rideCreationDTO.getRideNotes());
         newRide.setStatus(RideStatus.SCHEDULED);
+        applyRouteKeys(newRide); // Lets searches match any stop-to-stop leg, however the cities are spelled
 
         Ride savedRide = rideRepository.save(newRide);
+        AfterCommit.run(() -> {
+            rideSearchIndex.upsert(savedRide);
+            rideSearchCache.invalidate(savedRide);
+            locationAutocomplete.recordRide(savedRide);
+        });
         log.info("Ride created successfully with ID: {} by driver: {}", savedRide.getId(), driverEmail);
         // Assuming Auditing will handle createdAt/updatedAt, if not, set them here
         // newRide.setCreatedAt(LocalDateTime.now());
@@ -92,36 +126,108 @@ public class RideService {
         return convertToDto(savedRide);
     }
 
+    /**
+     * Startup backfill: rebuilds route_segments for rides stored before they existed or keyed with a different
+     * alias dictionary, so the Mongo search fallback finds them. Only the key fields are written, so concurrent
+     * bookings or edits are never overwritten. A dictionary change makes every ride stale, so rides are streamed
+     * (route fields only) and written in bulk batches of ROUTE_KEYS_BACKFILL_BATCH instead of loaded as one list.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRouteSegments() {
+        String version = locationNormalizer.getDictionaryVersion();
+        Map<String, List<String>> batch = new LinkedHashMap<>();
+        int rebuilt = 0;
+        try (Stream<Ride> rides = rideRepository.streamRoutesWithRouteKeysVersionNot(version)) {
+            for (Ride ride : (Iterable<Ride>) rides::iterator) {
+                batch.put(ride.getId(), RouteKeys.segmentKeys(ride, locationNormalizer));
+                if (batch.size() >= ROUTE_KEYS_BACKFILL_BATCH) {
+                    rideRepository.setRouteSegments(batch, version);
+                    rebuilt += batch.size();
+                    batch.clear();
+                    log.debug("Rebuilt route segments for {} rides so far.", rebuilt);
+                }
+            }
+        }
+        rideRepository.setRouteSegments(batch, version);
+        rebuilt += batch.size();
+        if (rebuilt > 0) {
+            log.info("Rebuilt route segments for {} rides (alias dictionary version {}).", rebuilt, version);
+        }
+    }
+
+    private void applyRouteKeys(Ride ride) {
+        ride.setRouteSegments(RouteKeys.segmentKeys(ride, locationNormalizer));
+        ride.setRouteKeysVersion(locationNormalizer.getDictionaryVersion());
+    }
+
     public RideDTO getRideDetailsById(String rideId) {
         Optional<Ride> results = rideRepository.findById(rideId);
         return results.map(this::convertToDto).orElse(null);
     }
 
+    @Timed(value = "rides.search", description = "Corridor ride search (cache, index or MongoDB)", histogram = true)
     public List<RideDTO> searchRides(String departureCity, String destinationCity, String departureState, String destinationState, LocalDateTime earliestDepartureTime) {
         LocalDateTime searchTime = (earliestDepartureTime != null) ? earliestDepartureTime : LocalDateTime.now();
         log.info("Searching for rides from '{}', '{}' to '{}', '{}' departing after '{}'", departureCity, departureState, destinationCity, destinationState, searchTime);
 
-        List<Ride> results = rideRepository.findByDepartureCityAndDestinationCityAndDepartureStateAndDestinationStateAndStatusAndDepartureTimeAfterAndAvailableSeatsGreaterThan(
-                departureCity,
-                destinationCity,
-                departureState,
-                destinationState,
+        List<RideDTO> results = rideSearchCache.search(departureCity, departureState, destinationCity, destinationState, searchTime,
+                after -> loadSearchResults(departureCity, destinationCity, departureState, destinationState, after));
+        log.info("Found {} rides matching search criteria.", results.size());
+        return results;
+    }
 
+    // Cache loader for searchRides: in-memory index when warmed up, otherwise MongoDB
+    private List<RideDTO> loadSearchResults(String departureCity, String destinationCity, String departureState, String destinationState, LocalDateTime searchTime) {
+        if (rideSearchIndex.isReady()) {
+            List<Ride> indexed = rideSearchIndex.search(departureCity, destinationCity, departureState, destinationState, searchTime);
+            log.debug("Loaded {} rides from the in-memory index.", indexed.size());
+            return convertToDtoList(indexed);
+        }
+
+        // Matches the full corridor as well as rides passing through both points via intermediate stops
+        List<Ride> results = rideRepository.findByRouteSegmentsAndStatusAndDepartureTimeAfterAndAvailableSeatsGreaterThan(
+                RouteKeys.segmentKey(departureCity, departureState, destinationCity, destinationState, locationNormalizer),
                 RideStatus.SCHEDULED, // Only search for scheduled rides
                 searchTime,
                 0
         );
 
-        log.info("Found {} rides matching search criteria.", results.size());
+        log.debug("Loaded {} rides from MongoDB.", results.size());
         return convertToDtoList(results);
     }
 
-    public List<RideDTO> findRidesByDriverEmail(String driverEmail) {
-        User driver = userRepository.findByEmail(driverEmail)
+    /**
+     * Radius search: rides leaving within originRadiusKm of the origin point and arriving within
+     * destinationRadiusKm of the destination point, ordered by distance from the origin.
+     */
+    public List<RideDTO> searchRidesNearby(double originLat, double originLng, double originRadiusKm,
+                                           double destinationLat, double destinationLng, double destinationRadiusKm,
+                                           LocalDateTime earliestDepartureTime, int limit) {
+        validateCoordinates(originLat, originLng);
+        validateCoordinates(destinationLat, destinationLng);
+        // Written as "inside the range" checks so NaN (which fails every comparison) is rejected too
+        if (!(originRadiusKm > 0 && originRadiusKm <= MAX_SEARCH_RADIUS_KM && destinationRadiusKm > 0 && destinationRadiusKm <= MAX_SEARCH_RADIUS_KM)) {
+            throw new IllegalArgumentException("Search radius must be between 0 and " + MAX_SEARCH_RADIUS_KM + " km.");
+        }
+        LocalDateTime searchTime = (earliestDepartureTime != null) ? earliestDepartureTime : LocalDateTime.now();
+        int resultLimit = Math.max(1, Math.min(limit, MAX_NEARBY_RESULTS));
+        log.info("Searching for rides within {} km of ({}, {}) to within {} km of ({}, {}) departing after '{}'",
+                originRadiusKm, originLat, originLng, destinationRadiusKm, destinationLat, destinationLng, searchTime);
+
+        List<Ride> results = rideRepository.findNearby(originLng, originLat, originRadiusKm,
+                destinationLng, destinationLat, destinationRadiusKm, searchTime, resultLimit);
+        log.info("Found {} rides matching radius search.", results.size());
+        return convertToDtoList(results);
+    }
+
+    // Driver's ride list, newest departure first. Reads projections (only the listed fields leave Mongo)
+    public List<RideSummaryDTO> findRidesByDriverEmail(String driverEmail) {
+        UserRepository.UserProfileView driver = userRepository.findProfileByEmail(driverEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User (driver) not found with email: " + driverEmail));
         log.info("Fetching rides for driver ID: {}", driver.getId());
-        List<Ride> rides = rideRepository.findByDriverId(driver.getId());
-        return convertToDtoList(rides);
+        return rideRepository.findSummariesByDriverIdOrderByDepartureTimeDesc(driver.getId()).stream()
+                .map(this::convertToSummaryDto)
+                .collect(Collectors.toList());
     }
 
     // --- RIDE LIFECYCLE METHODS ---
@@ -143,9 +249,10 @@ public class RideService {
 
         ride.setStatus(RideStatus.ACTIVE);
         Ride updatedRide = rideRepository.save(ride);
+        refreshSearchAfterCommit(updatedRide);
         log.info("Ride '{}' successfully started by driver '{}'", rideId, currentUserEmail);
         RideDTO updatedDto = convertToDto(updatedRide);
-        notificationService.notifyRideStatusUpdate(updatedDto);
+        outboxService.notifyRideStatusUpdate(updatedDto);
         return updatedDto;
     }
 
@@ -170,9 +277,10 @@ public class RideService {
         bookingService.updateBookingsStatusForRide(rideId, BookingStatus.COMPLETED);
 
         Ride updatedRide = rideRepository.save(ride);
+        refreshSearchAfterCommit(updatedRide);
         log.info("Ride '{}' successfully completed by driver '{}'", rideId, currentUserEmail);
         RideDTO updatedDto = convertToDto(updatedRide);
-        notificationService.notifyRideStatusUpdate(updatedDto);
+        outboxService.notifyRideStatusUpdate(updatedDto);
         return updatedDto;
     }
 
@@ -200,9 +308,10 @@ public class RideService {
 
         ride.setStatus(RideStatus.CANCELLED_BY_DRIVER);
         Ride savedRide = rideRepository.save(ride); // Save first to get potentially updated timestamps
+        refreshSearchAfterCommit(savedRide);
         log.info("Ride '{}' successfully cancelled by driver '{}'", rideId, currentUserEmail);
 
-        notificationService.notifyRideStatusUpdate(convertToDto(savedRide));
+        outboxService.notifyRideStatusUpdate(convertToDto(savedRide));
         bookingService.cancelBookingsForRide(ride.getId(), BookingStatus.CANCELLED_BY_DRIVER);
     }
 
@@ -228,6 +337,9 @@ public class RideService {
         if (ride.getStatus() != RideStatus.SCHEDULED) {
             throw new IllegalRideStateException("Ride can only be updated if it is in SCHEDULED status. Current status: " + ride.getStatus());
         }
+        List<String> previousSegments = RouteKeys.segmentKeys(ride, locationNormalizer); // Cached searches on the old route
+        String previousDeparture = RouteKeys.pointKey(ride.getDepartureCity(), ride.getDepartureState(), locationNormalizer);
+        String previousDestination = RouteKeys.pointKey(ride.getDestinationCity(), ride.getDestinationState(), locationNormalizer);
 
         // Validation for critical fields
         if (rideUpdateDTO.getDepartureTime() != null && rideUpdateDTO.getDepartureTime().isBefore(LocalDateTime.now().minusMinutes(1))) {
@@ -276,6 +388,14 @@ public class RideService {
         if (rideUpdateDTO.getDestinationAddress() != null) {
             ride.setDestinationAddress(rideUpdateDTO.getDestinationAddress());
         }
+        if (rideUpdateDTO.getDepartureLatitude() != null && rideUpdateDTO.getDepartureLongitude() != null) {
+            ride.setOriginLocation(toPoint(rideUpdateDTO.getDepartureLatitude(), rideUpdateDTO.getDepartureLongitude()));
+            significantChange = true;
+        }
+        if (rideUpdateDTO.getDestinationLatitude() != null && rideUpdateDTO.getDestinationLongitude() != null) {
+            ride.setDestinationLocation(toPoint(rideUpdateDTO.getDestinationLatitude(), rideUpdateDTO.getDestinationLongitude()));
+            significantChange = true;
+        }
         if (rideUpdateDTO.getDepartureTime() != null && !Objects.equals(rideUpdateDTO.getDepartureTime(), ride.getDepartureTime())) {
             ride.setDepartureTime(rideUpdateDTO.getDepartureTime());
             significantChange = true;
@@ -322,7 +442,20 @@ public class RideService {
         }
 
 
+        applyRouteKeys(ride); // Cities, states or stops may have changed
         Ride updatedRideEntity = rideRepository.save(ride);
+        AfterCommit.run(() -> {
+            rideSearchIndex.upsert(updatedRideEntity);
+            rideSearchCache.invalidateSegments(previousSegments);
+            rideSearchCache.invalidate(updatedRideEntity);
+            // Count the ride towards any new endpoint in the autocomplete ranking
+            if (!previousDeparture.equals(RouteKeys.pointKey(updatedRideEntity.getDepartureCity(), updatedRideEntity.getDepartureState(), locationNormalizer))) {
+                locationAutocomplete.recordLocation(updatedRideEntity.getDepartureCity(), updatedRideEntity.getDepartureState());
+            }
+            if (!previousDestination.equals(RouteKeys.pointKey(updatedRideEntity.getDestinationCity(), updatedRideEntity.getDestinationState(), locationNormalizer))) {
+                locationAutocomplete.recordLocation(updatedRideEntity.getDestinationCity(), updatedRideEntity.getDestinationState());
+            }
+        });
         log.info("Ride '{}' updated in repository by driver '{}'. Significant change: {}", rideId, currentUserEmail, significantChange);
 
         RideDTO updatedRideDTO = convertToDto(updatedRideEntity);
@@ -341,6 +474,14 @@ public class RideService {
     // The new updateRide and lifecycle methods above already use enums.
     // We also need convertToDto and convertToDtoList.
 
+    // Status changes: update the search index and cache once the change is committed
+    private void refreshSearchAfterCommit(Ride savedRide) {
+        AfterCommit.run(() -> {
+            rideSearchIndex.upsert(savedRide);
+            rideSearchCache.invalidate(savedRide);
+        });
+    }
+
     private RideDTO convertToDto(Ride ride) {
         if (ride == null) return null;
         RideDTO dto = new RideDTO();
@@ -354,6 +495,14 @@ public class RideService {
         dto.setDestinationAddress(ride.getDestinationAddress());
         dto.setDepartureTime(ride.getDepartureTime());
         dto.setEstimatedArrivalTime(ride.getEstimatedArrivalTime());
+        if (ride.getOriginLocation() != null) {
+            dto.setDepartureLatitude(ride.getOriginLocation().getY());
+            dto.setDepartureLongitude(ride.getOriginLocation().getX());
+        }
+        if (ride.getDestinationLocation() != null) {
+            dto.setDestinationLatitude(ride.getDestinationLocation().getY());
+            dto.setDestinationLongitude(ride.getDestinationLocation().getX());
+        }
         dto.setAvailableSeats(ride.getAvailableSeats());
         dto.setTotalSeats(ride.getTotalSeats());
         dto.setFarePerSeat(ride.getFarePerSeat());
@@ -369,6 +518,41 @@ public class RideService {
         return dto;
     }
 
+    private RideSummaryDTO convertToSummaryDto(RideRepository.RideSummaryView ride) {
+        RideSummaryDTO dto = new RideSummaryDTO();
+        dto.setId(ride.getId());
+        dto.setDepartureCity(ride.getDepartureCity());
+        dto.setDepartureState(ride.getDepartureState());
+        dto.setDestinationCity(ride.getDestinationCity());
+        dto.setDestinationState(ride.getDestinationState());
+        dto.setDepartureTime(ride.getDepartureTime());
+        dto.setEstimatedArrivalTime(ride.getEstimatedArrivalTime());
+        dto.setAvailableSeats(ride.getAvailableSeats());
+        dto.setTotalSeats(ride.getTotalSeats());
+        dto.setFarePerSeat(ride.getFarePerSeat());
+        dto.setStatus(ride.getStatus());
+        dto.setRideNotes(ride.getRideNotes());
+        dto.setCreatedAt(ride.getCreatedAt());
+        dto.setUpdatedAt(ride.getUpdatedAt());
+        return dto;
+    }
+
+    // GeoJSON stores [longitude, latitude]; both must be present to make a point
+    private GeoJsonPoint toPoint(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        validateCoordinates(latitude, longitude);
+        return new GeoJsonPoint(longitude, latitude);
+    }
+
+    private void validateCoordinates(double latitude, double longitude) {
+        // NaN fails every comparison, so test for "inside" rather than "outside"; infinities are out of range
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid coordinates: (" + latitude + ", " + longitude + ").");
+        }
+    }
+
     private List<RideDTO> convertToDtoList(List<Ride> rides) {
         if (rides == null || rides.isEmpty()) {
             return Collections.emptyList();
@@ -0,0 +1,438 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.dto.SlowQueryDTO;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Slow MongoDB command log (registered on the driver by MongoConfig).
+ *
+ * Every query-type command (find, aggregate, count, distinct, update, delete, findAndModify) slower than
+ * mongodb.slow-query.threshold-ms is recorded under its shape: collection, command and filter/sort/pipeline with
+ * every literal replaced by "?" (so one entry per finder method rather than per set of arguments, and no user data
+ * is kept). For each shape the command is explained (queryPlanner verbosity) on a background thread, at most once
+ * per explain-interval-ms, and the winning plan is summarized, e.g. "FETCH <- IXSCAN {rideId: 1, status: 1}";
+ * a plan containing COLLSCAN is flagged, as that's how a derived query degrades when its index is missing.
+ *
+ * Offenders are listed at GET /api/admin/slow-queries. Metric: mongodb.slow.commands{command,collection}.
+ * getMore batches aren't tracked (the slow part is normally the find/aggregate that opened the cursor).
+ */
+@Component
+public class SlowQueryMonitor implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryMonitor.class);
+
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+    // Session/transaction/cluster fields the driver adds; explain rejects or doesn't need them
+    private static final Set<String> DRIVER_FIELDS = Set.of("$db", "lsid", "$clusterTime", "txnNumber", "startTransaction",
+            "autocommit", "$readPreference", "readConcern", "writeConcern", "apiVersion", "apiStrict", "apiDeprecationErrors");
+
+    private final ObjectProvider<MongoClient> mongoClient; // Lazy: the client is built with this listener registered
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final int maxShapes;
+    private final long explainIntervalMs;
+
+    // Explainable copies of in-flight commands, by driver request id. The event's command document is only valid
+    // during the callback, so it has to be copied up front, before we know whether the command will be slow.
+    private final Map<Integer, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Offender> offenders = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor;
+    private final Counter droppedShapes;
+
+    public SlowQueryMonitor(ObjectProvider<MongoClient> mongoClient,
+                            MeterRegistry meterRegistry,
+                            @Value("${mongodb.slow-query.enabled:true}") boolean enabled,
+                            @Value("${mongodb.slow-query.threshold-ms:100}") long thresholdMs,
+                            @Value("${mongodb.slow-query.max-shapes:500}") int maxShapes,
+                            @Value("${mongodb.slow-query.explain-interval-ms:600000}") long explainIntervalMs) {
+        this.mongoClient = mongoClient;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.maxShapes = maxShapes;
+        this.explainIntervalMs = explainIntervalMs;
+
+        // One thread, small queue: explains are diagnostics and must never pile up behind a slow database.
+        // A full queue rejects (AbortPolicy); recordSlow releases the shape's claim so a later slow call can retry.
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(64), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.droppedShapes = Counter.builder("mongodb.slow.shapes.dropped")
+                .description("Slow commands not recorded because mongodb.slow-query.max-shapes was reached").register(meterRegistry);
+    }
+
+    // --- CommandListener ---
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (enabled && EXPLAINABLE.contains(event.getCommandName())) {
+            inFlight.put(event.getRequestId(), new InFlight(event.getDatabaseName(), explainableCopy(event.getCommand())));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        InFlight started = inFlight.remove(event.getRequestId());
+        if (started != null && event.getElapsedTime(TimeUnit.NANOSECONDS) >= thresholdNanos) {
+            recordSlow(started.database(), event.getCommandName(), started.command(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+
+    // --- Admin view ---
+
+    /**
+     * Recorded shapes, worst first.
+     * @param sort "total" (cumulative time, default), "count" or "max".
+     */
+    public List<SlowQueryDTO> topOffenders(int limit, String sort) {
+        Comparator<SlowQueryDTO> order = switch (sort == null ? "total" : sort) {
+            case "total" -> Comparator.comparingDouble(SlowQueryDTO::getTotalMs);
+            case "count" -> Comparator.comparingLong(SlowQueryDTO::getCount);
+            case "max" -> Comparator.comparingDouble(SlowQueryDTO::getMaxMs);
+            default -> throw new IllegalArgumentException("Unknown sort '" + sort + "'; use total, count or max");
+        };
+        return offenders.values().stream()
+                .map(Offender::toDTO)
+                .sorted(order.reversed())
+                .limit(Math.max(1, limit))
+                .toList();
+    }
+
+    public void reset() {
+        offenders.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    // --- Recording ---
+
+    private void recordSlow(String database, String commandName, BsonDocument command, long nanos) {
+        String collection = command.isString(commandName) ? command.getString(commandName).getValue() : "(database)";
+        String shape = shapeOf(commandName, command).toJson();
+        String key = database + "." + collection + " " + commandName + " " + shape;
+
+        Offender offender = offenders.get(key);
+        if (offender == null) {
+            if (offenders.size() >= maxShapes) {
+                droppedShapes.increment();
+                return;
+            }
+            offender = offenders.computeIfAbsent(key, k -> new Offender(database, collection, commandName, shape));
+            log.warn("Slow MongoDB {} on {}.{} ({} ms): {}", commandName, database, collection,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), shape);
+        }
+        offender.record(nanos);
+        Counter.builder("mongodb.slow.commands")
+                .description("MongoDB commands slower than mongodb.slow-query.threshold-ms")
+                .tag("command", commandName)
+                .tag("collection", collection)
+                .register(meterRegistry)
+                .increment();
+
+        if (offender.explainDue(explainIntervalMs)) {
+            Offender target = offender;
+            try {
+                explainExecutor.execute(() -> explain(target, command));
+            } catch (RejectedExecutionException e) {
+                target.explainSkipped(); // Queue full or shutting down; not explained, so not stale-stamped either
+                log.debug("Explain queue full, skipping explain of {} on {}.{}", commandName, database, collection);
+            }
+        }
+    }
+
+    private void explain(Offender offender, BsonDocument command) {
+        try {
+            Document result = mongoClient.getObject().getDatabase(offender.database)
+                    .runCommand(new Document("explain", command).append("verbosity", "queryPlanner"));
+            PlanSummary plan = summarize(result);
+            offender.explained(plan, null);
+            if (plan.collectionScan()) {
+                log.warn("Slow {} on {}.{} scans the whole collection: {}", offender.command, offender.database,
+                        offender.collection, plan.text());
+            }
+        } catch (Exception e) {
+            offender.explained(null, e.getMessage());
+            log.debug("Explain failed for {} on {}.{}: {}", offender.command, offender.database, offender.collection, e.getMessage());
+        }
+    }
+
+    /**
+     * The command as it can be explained later: driver fields removed, and for update/delete only the first
+     * statement (explain takes one, and a bulk write may carry thousands).
+     */
+    private static BsonDocument explainableCopy(BsonDocument command) {
+        BsonDocument copy = new BsonDocument();
+        for (Map.Entry<String, BsonValue> entry : command.entrySet()) {
+            String field = entry.getKey();
+            if (DRIVER_FIELDS.contains(field)) {
+                continue;
+            }
+            BsonValue value = entry.getValue();
+            if ((field.equals("updates") || field.equals("deletes")) && value.isArray() && !value.asArray().isEmpty()) {
+                copy.put(field, new BsonArray(List.of(value.asArray().get(0).asDocument().clone())));
+            } else if (value.isDocument()) {
+                copy.put(field, value.asDocument().clone());
+            } else if (value.isArray()) {
+                copy.put(field, value.asArray().clone());
+            } else {
+                copy.put(field, value); // Scalars aren't backed by the driver's buffer
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * The part of the command that decides the plan, literals replaced by "?".
+     */
+    private static BsonDocument shapeOf(String commandName, BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        switch (commandName) {
+            case "find" -> {
+                copyMasked(command, "filter", shape);
+                copyAsIs(command, "sort", shape);
+                copyAsIs(command, "projection", shape);
+                copyAsIs(command, "hint", shape);
+            }
+            case "aggregate" -> copyMasked(command, "pipeline", shape);
+            case "count", "distinct", "findAndModify" -> {
+                copyMasked(command, "query", shape);
+                copyAsIs(command, "key", shape);
+                copyAsIs(command, "sort", shape);
+            }
+            case "update", "delete" -> {
+                BsonValue statements = command.get(commandName.equals("update") ? "updates" : "deletes");
+                if (statements != null && statements.isArray() && !statements.asArray().isEmpty()) {
+                    copyMasked(statements.asArray().get(0).asDocument(), "q", shape);
+                }
+            }
+            default -> { }
+        }
+        return shape;
+    }
+
+    private static void copyMasked(BsonDocument from, String field, BsonDocument to) {
+        if (from.containsKey(field)) {
+            to.put(field, mask(from.get(field)));
+        }
+    }
+
+    private static void copyAsIs(BsonDocument from, String field, BsonDocument to) {
+        if (from.containsKey(field)) {
+            to.put(field, from.get(field));
+        }
+    }
+
+    private static BsonValue mask(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument masked = new BsonDocument();
+            value.asDocument().forEach((key, nested) -> masked.put(key, mask(nested)));
+            return masked;
+        }
+        if (value.isArray()) {
+            // $and/$or/pipelines keep their structure; arrays of literals ($in lists) collapse to one "?"
+            BsonArray array = value.asArray();
+            boolean structured = array.stream().anyMatch(element -> element.isDocument() || element.isArray());
+            if (!structured) {
+                return new BsonString("?");
+            }
+            BsonArray masked = new BsonArray();
+            array.forEach(element -> masked.add(mask(element)));
+            return masked;
+        }
+        return new BsonString("?");
+    }
+
+    private record InFlight(String database, BsonDocument command) {
+    }
+
+    // --- Plan summary ---
+
+    record PlanSummary(String text, boolean collectionScan, List<String> indexes) {
+    }
+
+    private static PlanSummary summarize(Document explain) {
+        Document queryPlanner = findQueryPlanner(explain);
+        if (queryPlanner == null || !(queryPlanner.get("winningPlan") instanceof Document winningPlan)) {
+            return new PlanSummary("(no plan in explain output)", false, List.of());
+        }
+        if (winningPlan.get("queryPlan") instanceof Document slotBasedPlan) {
+            winningPlan = slotBasedPlan; // Slot-based engine wraps the classic plan tree
+        }
+        List<String> stages = new ArrayList<>();
+        Set<String> indexes = new LinkedHashSet<>();
+        boolean[] collectionScan = {false};
+        walk(winningPlan, stages, indexes, collectionScan);
+        return new PlanSummary(String.join(" <- ", stages), collectionScan[0], List.copyOf(indexes));
+    }
+
+    // explain(find) has queryPlanner at the top; explain(aggregate) may nest it in the $cursor stage
+    private static Document findQueryPlanner(Object node) {
+        if (node instanceof Document document) {
+            if (document.get("queryPlanner") instanceof Document queryPlanner) {
+                return queryPlanner;
+            }
+            for (Object value : document.values()) {
+                Document found = findQueryPlanner(value);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object value : list) {
+                Document found = findQueryPlanner(value);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void walk(Document stage, List<String> stages, Set<String> indexes, boolean[] collectionScan) {
+        String name = stage.getString("stage");
+        if ("COLLSCAN".equals(name)) {
+            collectionScan[0] = true;
+        }
+        if (stage.get("keyPattern") instanceof Document keyPattern) {
+            indexes.add(stage.getString("indexName"));
+            stages.add(name + " " + keyPattern.toJson());
+        } else if (name != null) {
+            stages.add(name);
+        }
+        if (stage.get("inputStage") instanceof Document input) {
+            walk(input, stages, indexes, collectionScan);
+        }
+        if (stage.get("inputStages") instanceof List<?> inputs) {
+            for (Object input : inputs) {
+                if (input instanceof Document document) {
+                    walk(document, stages, indexes, collectionScan);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stats for one command shape.
+     */
+    private static final class Offender {
+        final String database;
+        final String collection;
+        final String command;
+        final String shape;
+
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        volatile long lastNanos;
+        volatile LocalDateTime lastSeen;
+
+        final AtomicBoolean explainPending = new AtomicBoolean(false);
+        volatile long explainedAtMillis;
+        volatile LocalDateTime explainedAt;
+        volatile PlanSummary plan;
+        volatile String explainError;
+
+        Offender(String database, String collection, String command, String shape) {
+            this.database = database;
+            this.collection = collection;
+            this.command = command;
+            this.shape = shape;
+        }
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            lastNanos = nanos;
+            lastSeen = LocalDateTime.now();
+        }
+
+        // Claims the explain for this shape if none is running and the last one is older than the interval
+        boolean explainDue(long intervalMs) {
+            boolean stale = explainedAt == null || System.currentTimeMillis() - explainedAtMillis >= intervalMs;
+            return stale && explainPending.compareAndSet(false, true);
+        }
+
+        void explained(PlanSummary plan, String error) {
+            if (plan != null) {
+                this.plan = plan;
+            }
+            this.explainError = error;
+            this.explainedAtMillis = System.currentTimeMillis();
+            this.explainedAt = LocalDateTime.now();
+            explainPending.set(false);
+        }
+
+        // Releases the claim taken by explainDue when the explain could not be queued
+        void explainSkipped() {
+            explainPending.set(false);
+        }
+
+        SlowQueryDTO toDTO() {
+            long n = count.get();
+            SlowQueryDTO dto = new SlowQueryDTO();
+            dto.setDatabase(database);
+            dto.setCollection(collection);
+            dto.setCommand(command);
+            dto.setShape(shape);
+            dto.setCount(n);
+            dto.setTotalMs(totalNanos.get() / 1e6);
+            dto.setAvgMs(n == 0 ? 0 : totalNanos.get() / 1e6 / n);
+            dto.setMaxMs(maxNanos.get() / 1e6);
+            dto.setLastMs(lastNanos / 1e6);
+            dto.setLastSeen(lastSeen);
+            PlanSummary summary = plan;
+            if (summary != null) {
+                dto.setPlanSummary(summary.text());
+                dto.setCollectionScan(summary.collectionScan());
+                dto.setIndexes(summary.indexes());
+            }
+            dto.setExplainedAt(explainedAt);
+            dto.setExplainError(explainError);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.carsharing.backend.service;
+
+import com.carsharing.backend.model.DocumentStatus;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One-off data migration: moves document metadata embedded in users.documents (written by the old
+ * /api/users/me/documents upload) into the document_info collection, then removes the array from the user.
+ *
+ * Runs before the web server starts: User no longer maps 'documents', so the first save of a not yet migrated
+ * user would otherwise drop its array. Per user, entries are copied first (upserted on userId + filePath, so a
+ * rerun after a crash doesn't duplicate them) and the array is unset afterwards. Once no user has the field, this
+ * is one empty query per startup and can be switched off (migrations.user-documents.enabled=false).
+ *
+ * A failure stops the startup rather than letting the application run on half-migrated users.
+ */
+@Component
+public class UserDocumentsMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDocumentsMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public UserDocumentsMigration(MongoTemplate mongoTemplate,
+                                  @Value("${migrations.user-documents.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    public void migrate() {
+        Query withDocuments = new Query(Criteria.where("documents").exists(true));
+        withDocuments.fields().include("_id").include("documents");
+        long start = System.currentTimeMillis();
+        int users = 0;
+        int moved = 0;
+        try (Stream<Document> stream = mongoTemplate.stream(withDocuments, Document.class, "users")) {
+            for (Document user : (Iterable<Document>) stream::iterator) {
+                moved += migrateUser(user);
+                users++;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Migrating users.documents to document_info failed after " + users
+                    + " users; restart to resume: " + e.getMessage(), e);
+        }
+        if (users > 0) {
+            log.info("Moved {} embedded documents of {} users to document_info ({} ms).", moved, users,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    private int migrateUser(Document user) {
+        Object id = user.get("_id");
+        String userId = id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+        int moved = 0;
+        for (Object element : user.getList("documents", Object.class, List.of())) {
+            if (!(element instanceof Document embedded) || embedded.getString("filePath") == null) {
+                log.warn("Dropping embedded document without a stored file for user {}: {}", userId, element);
+                continue;
+            }
+            String documentType = embedded.getString("documentType");
+            String status = embedded.getString("status");
+            Update update = new Update()
+                    // Same normalization as DocumentService.storeDocument
+                    .setOnInsert("documentType", documentType == null ? null : documentType.toUpperCase().replace(" ", "_"))
+                    .setOnInsert("originalFilename", embedded.getString("originalFilename"))
+                    .setOnInsert("contentType", embedded.getString("contentType"))
+                    .setOnInsert("size", embedded.get("size") instanceof Number size ? size.longValue() : 0L)
+                    .setOnInsert("uploadedAt", embedded.get("uploadedAt"))
+                    .setOnInsert("status", status == null ? DocumentStatus.PENDING_APPROVAL.name() : status);
+            Query sameFile = new Query(Criteria.where("userId").is(userId).and("filePath").is(embedded.getString("filePath")));
+            mongoTemplate.upsert(sameFile, update, "document_info");
+            moved++;
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)), new Update().unset("documents"), "users");
+        return moved;
+    }
+}
@@ -3,18 +3,13 @@ package com.carsharing.backend.service;
 import com.carsharing.backend.exception.ActionNotAllowedException;
 import com.carsharing.backend.exception.ResourceNotFoundException;
 
-import com.carsharing.backend.exception.FileStorageException;
 import com.carsharing.backend.model.User;
 import com.carsharing.backend.repository.UserRepository;
 
-import org.springframework.util.StringUtils;
 
-import com.carsharing.backend.model.DocumentInfo; // Import DocumentInfo
-import com.carsharing.backend.model.DocumentStatus;
 import com.carsharing.backend.dto.DocumentInfoDTO;
 
 import org.springframework.web.multipart.MultipartFile; // Import MultipartFile
-import java.time.LocalDateTime; // Import LocalDateTime
 // import org.springframework.security.access.AccessDeniedException; // Keep this
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,9 +44,6 @@ public class UserService { // Or DriverApplicationService
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired // Inject FileStorageService
-    private FileStorageService fileStorageService;
-
     @Autowired
     private DocumentService documentService;
     
@@ -101,10 +93,10 @@ public class UserService { // Or DriverApplicationService
 
     // --- Admin Management Logic ---
 
-    public List<User> listPendingDriverApplications() {
+    public List<UserRepository.UserProfileView> listPendingDriverApplications() {
         log.info("Fetching users with PENDING_APPROVAL driver status.");
-        // Need a repository method for this
-        return userRepository.findByDriverStatus(DRIVER_STATUS_PENDING);
+        // Profile projection: the password hash isn't read
+        return userRepository.findProfilesByDriverStatus(DRIVER_STATUS_PENDING);
     }
 
     @Transactional
@@ -165,46 +157,13 @@ public class UserService { // Or DriverApplicationService
     }
 
 
-    @Transactional
+    // Legacy upload endpoint (/api/users/me/documents): same storage as /api/documents/me, metadata goes to the
+    // document_info collection (never into the user document, which JwtFilter reads on every request)
     public User uploadDocument(String userEmail, MultipartFile file, String documentType) {
         log.info("User '{}' uploading document of type '{}', filename '{}'", userEmail, documentType, file.getOriginalFilename());
-
-        // 1. Find User
-        User user = findUserByEmail(userEmail);
-
-        // 2. Store File using FileStorageService
-    String originalFilenameNullable = file.getOriginalFilename();
-    if (originalFilenameNullable == null) {
-        throw new FileStorageException("Cannot upload file with null filename."); // Or IllegalArgumentException
-    }
-    String storedFilename = fileStorageService.storeFile(file, user.getId(), documentType);
-    String originalFilename = StringUtils.cleanPath(originalFilenameNullable); // Use cleaned variable
-
-        // 3. Create Metadata
-        DocumentInfo docInfo = new DocumentInfo();
-        docInfo.setDocumentType(documentType); // e.g., "LICENSE"
-        docInfo.setOriginalFilename(originalFilename); // Use cleaned name
-        docInfo.setStoredFilename(storedFilename);
-
-        // Store relative path or just filename if base dir is known
-        // For simplicity now, storing filename. Viewing endpoint will need base dir.
-        docInfo.setFilePath(storedFilename);
-        docInfo.setUploadTimestamp(LocalDateTime.now());
-        docInfo.setVerificationStatus(DocumentStatus.PENDING_APPROVAL); // Initial status
-
-        // 4. Add metadata to user's document list
-        // Ensure list exists (should be handled by constructor/getter)
-        if (user.getDocuments() == null) {
-            user.setDocuments(new ArrayList<>());
-        }
-        // Optional: Remove existing doc of the same type before adding new one?
-        // user.getDocuments().removeIf(doc -> documentType.equalsIgnoreCase(doc.getDocumentType()));
-        user.getDocuments().add(docInfo);
-
-        // 5. Save updated user
-        User updatedUser = userRepository.save(user);
-        log.info("Document metadata added for user '{}'. Stored filename: {}", userEmail, storedFilename);
-        return updatedUser; // Return updated user (or just success message/DTO)
+        DocumentInfoDTO stored = documentService.storeDocument(file, documentType, userEmail);
+        log.info("Document metadata stored for user '{}'. Document id: {}", userEmail, stored.getId());
+        return findUserByEmail(userEmail);
     }
 
 
@@ -0,0 +1,32 @@
+package com.carsharing.backend.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects of a write (RideSearchIndex, RideSearchCache, LocationAutocomplete) until the
+ * write is visible to other readers.
+ *
+ * Inside a transaction the action runs after commit, and not at all on rollback: updating the index earlier
+ * would serve a state that may never exist, and a search racing the commit could re-cache the old one. Outside
+ * a transaction (mongodb.transactions.enabled=false) the write is already applied, so the action runs now.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.carsharing.backend.util;
+
+import com.carsharing.backend.model.Ride;
+import com.carsharing.backend.service.LocationNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the normalized keys used to match rides by route.
+ *
+ * A route point is "state|city", both run through {@link LocationNormalizer} (case/accent folding and
+ * aliases), so every spelling of a place maps to the same key. A ride's route is its departure point, its
+ * intermediate stops in order, then its destination. A segment key "A->B" exists for every pair of
+ * points where A comes before B, so a passenger travelling A->B matches any ride passing A then B.
+ * The full departure->destination segment is the ride's corridor.
+ */
+public final class RouteKeys {
+
+    // Caps segment count at (12 * 11) / 2 = 66 keys per ride
+    public static final int MAX_ROUTE_POINTS = 12;
+
+    private static final String SEGMENT_SEPARATOR = "->";
+
+    private RouteKeys() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    public static String pointKey(String city, String state, LocationNormalizer normalizer) {
+        return normalizer.normalizeState(state) + '|' + normalizer.normalizeCity(city);
+    }
+
+    public static String segmentKey(String fromCity, String fromState, String toCity, String toState, LocationNormalizer normalizer) {
+        return pointKey(fromCity, fromState, normalizer) + SEGMENT_SEPARATOR + pointKey(toCity, toState, normalizer);
+    }
+
+    /**
+     * Ordered route points of a ride. Stops may be written "City, State"; a stop without a state
+     * is assumed to be in the same state as the point before it.
+     */
+    public static List<String> routePoints(Ride ride, LocationNormalizer normalizer) {
+        List<String> points = new ArrayList<>();
+        points.add(pointKey(ride.getDepartureCity(), ride.getDepartureState(), normalizer));
+        String previousState = ride.getDepartureState();
+        List<String> stops = ride.getIntermediateStops() != null ? ride.getIntermediateStops() : Collections.emptyList();
+        for (String stop : stops) {
+            if (stop == null || stop.isBlank() || points.size() >= MAX_ROUTE_POINTS - 1) {
+                continue;
+            }
+            int comma = stop.lastIndexOf(',');
+            String city = comma >= 0 ? stop.substring(0, comma) : stop;
+            String state = comma >= 0 ? stop.substring(comma + 1) : previousState;
+            points.add(pointKey(city, state, normalizer));
+            previousState = state;
+        }
+        points.add(pointKey(ride.getDestinationCity(), ride.getDestinationState(), normalizer));
+        return points;
+    }
+
+    /**
+     * All "A->B" segment keys covered by the ride's route, corridor first. Repeated points
+     * (e.g. a loop back through the departure city) don't produce self-segments or duplicates.
+     */
+    public static List<String> segmentKeys(Ride ride, LocationNormalizer normalizer) {
+        List<String> points = routePoints(ride, normalizer);
+        Set<String> segments = new LinkedHashSet<>();
+        segments.add(points.get(0) + SEGMENT_SEPARATOR + points.get(points.size() - 1));
+        for (int i = 0; i < points.size(); i++) {
+            for (int j = i + 1; j < points.size(); j++) {
+                if (!points.get(i).equals(points.get(j))) {
+                    segments.add(points.get(i) + SEGMENT_SEPARATOR + points.get(j));
+                }
+            }
+        }
+        return new ArrayList<>(segments);
+    }
+}
@@ -0,0 +1,27 @@
+package com.carsharing.backend.util;
+
+/**
+ * Broker destinations the backend broadcasts to, in one place so senders and clients agree on the names.
+ *
+ * Topic names are '.'-separated after the /topic/ prefix (/topic/ride.{id}.chat): with the broker relay, RabbitMQ
+ * maps the rest of the destination to an AMQP routing key, where '.' is the separator and '/' isn't allowed.
+ * Application destinations (/app/...) never reach the broker and keep their '/' paths.
+ */
+public final class StompDestinations {
+
+    public static final String APPLICATION_PREFIX = "/app";
+
+    private StompDestinations() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    // Chat messages of one ride, for the driver and confirmed passengers
+    public static String rideChat(String rideId) {
+        return "/topic/ride." + rideId + ".chat";
+    }
+
+    // Ride status changes (started, completed, cancelled)
+    public static String rideStatus(String rideId) {
+        return "/topic/ride." + rideId + ".status";
+    }
+}
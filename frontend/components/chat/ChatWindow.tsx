@@ -86,7 +86,7 @@ const ChatWindow = ({ rideId }: ChatWindowProps) => {
   // WebSocket subscription for new chat messages
   useEffect(() => {
     if (isConnected && stompClient && rideId && user && !chatSubscriptionRef.current) {
-      const destination = `/topic/ride/${rideId}/chat`;
+      const destination = `/topic/ride.${rideId}.chat`;
       console.log(`Chat: Subscribing to ${destination}`);
       chatSubscriptionRef.current = subscribe(destination, (message) => {
         console.log(`Chat: Received message on ${destination}:`, message.body);
@@ -104,7 +104,7 @@ const ChatWindow = ({ rideId }: ChatWindowProps) => {
     // Cleanup on unmount or if dependencies change causing re-subscription
     return () => {
       if (chatSubscriptionRef.current) {
-        console.log(`Chat: Unsubscribing from /topic/ride/${rideId}/chat`);
+        console.log(`Chat: Unsubscribing from /topic/ride.${rideId}.chat`);
         chatSubscriptionRef.current.unsubscribe();
         chatSubscriptionRef.current = null; // Reset ref
       }
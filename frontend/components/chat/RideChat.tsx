@@ -77,7 +77,7 @@ const RideChat: React.FC<RideChatProps> = ({ rideId }) => {
       toast.success("Chat connected!");
       console.log('Connected to WebSocket chat server:', frame);
 
-      subscriptionRef.current = client.subscribe(`/topic/ride/${rideId}/chat`, (message: IMessage) => {
+      subscriptionRef.current = client.subscribe(`/topic/ride.${rideId}.chat`, (message: IMessage) => {
         try {
           const receivedMessage: ChatMessage = JSON.parse(message.body);
           console.log("Received message:", receivedMessage);